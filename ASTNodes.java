@@ -3,7 +3,7 @@ import java.util.ArrayList;
 
 // Nodo base del AST
 abstract class ASTNode {
-    public abstract void accept(PrinterQuery printer);
+    public abstract <R> R accept(ASTVisitor<R> visitor);
 }
 
 // Nodo para consultas completas
@@ -19,8 +19,8 @@ class QueryNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -28,30 +28,36 @@ class QueryNode extends ASTNode {
 // Nodo para SELECT
 class SelectNode extends ASTNode {
     List<ASTNode> fields;
+    final boolean distinct; // SELECT DISTINCT: el resultado no repite filas
 
     public SelectNode(List<ASTNode> fields) {
+        this(fields, false);
+    }
+
+    public SelectNode(List<ASTNode> fields, boolean distinct) {
         this.fields = fields;
+        this.distinct = distinct;
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
 // Nodo para FROM
 class FromNode extends ASTNode {
-    String table;
-    String alias;
+    Symbol table;
+    Symbol alias; // null si la tabla no tiene alias
 
-    public FromNode(String table, String alias) {
+    public FromNode(Symbol table, Symbol alias) {
         this.table = table;
         this.alias = alias;
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -64,8 +70,8 @@ class WhereNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -85,30 +91,41 @@ class ArithmeticExprNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
 // Nodo para el asterisco (*)
 class StarNode extends ASTNode {
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
 // Nodo para identificadores de campos
 class FieldNode extends ASTNode {
-    String field;
+    Symbol qualifier; // Tabla o alias de "x.col"; null en un nombre simple
+    Symbol column;
+
+    public FieldNode(Symbol qualifier, Symbol column) {
+        this.qualifier = qualifier;
+        this.column = column;
+    }
 
-    public FieldNode(String field) {
-        this.field = field;
+    public FieldNode(Symbol column) {
+        this(null, column);
+    }
+
+    // Nombre tal como se escribió en la consulta
+    public String name() {
+        return qualifier == null ? column.name : qualifier.name + "." + column.name;
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -121,8 +138,8 @@ class NumberNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -135,8 +152,44 @@ class StringNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+}
+
+// Nodo para TRUE / FALSE
+class BooleanNode extends ASTNode {
+    boolean value;
+
+    public BooleanNode(boolean value) {
+        this.value = value;
+    }
+
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+}
+
+// Nodo para NULL
+class NullNode extends ASTNode {
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+}
+
+// Nodo para un parámetro '?' de una consulta preparada; 'index' empieza en 0
+class ParameterNode extends ASTNode {
+    int index;
+
+    public ParameterNode(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -151,8 +204,8 @@ class FunctionNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -172,8 +225,8 @@ class LogicalExprNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -193,8 +246,8 @@ class RelationalExprNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
 
@@ -210,7 +263,7 @@ class NotNode extends ASTNode {
     }
 
     @Override
-    public void accept(PrinterQuery printer) {
-        printer.visit(this);
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 }
@@ -0,0 +1,35 @@
+// Visitante genérico del AST: cada pasada (impresión, análisis, evaluación)
+// implementa esta interfaz sin tener que modificar las clases de los nodos
+public interface ASTVisitor<R> {
+    R visit(QueryNode node);
+
+    R visit(SelectNode node);
+
+    R visit(FromNode node);
+
+    R visit(WhereNode node);
+
+    R visit(ArithmeticExprNode node);
+
+    R visit(StarNode node);
+
+    R visit(FieldNode node);
+
+    R visit(NumberNode node);
+
+    R visit(StringNode node);
+
+    R visit(BooleanNode node);
+
+    R visit(NullNode node);
+
+    R visit(ParameterNode node);
+
+    R visit(FunctionNode node);
+
+    R visit(LogicalExprNode node);
+
+    R visit(RelationalExprNode node);
+
+    R visit(NotNode node);
+}
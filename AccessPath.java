@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Selector de camino de acceso: busca en los términos del WHERE las comparaciones de una columna
+// con un literal (x.id = 42, "a" <= x.nombre, x.precio < 20) y, para cada tabla, elige la que deja
+// menos filas candidatas:
+//   columna = literal           ->  búsqueda en el HashIndex de la columna
+//   columna <, <=, >, >= literal ->  rango en el SortedIndex; varias cotas de la misma columna se
+//                                   combinan en un solo rango (precio >= 10 AND precio < 20)
+// Los términos que el índice elegido ya garantiza salen del filtro; los demás se siguen evaluando,
+// pero solo sobre las filas candidatas. Los índices se crean la primera vez que se usan.
+final class AccessPath {
+    // Las tablas más chicas que un lote se recorren completas: no vale la pena crear índices
+    static final int MIN_FILAS = Batch.SIZE;
+    // Un índice solo se usa si deja como mucho esta fracción de las filas (1/4)
+    private static final int SELECTIVIDAD = 4;
+
+    // Comparaciones con literales sobre una misma columna
+    private static final class Restriccion {
+        final int source;
+        final int column;
+        ASTNode terminoIgual;
+        Object igual;
+        final List<ASTNode> terminosRango = new ArrayList<>();
+        Object desde;
+        boolean desdeIncluido;
+        Object hasta;
+        boolean hastaIncluido;
+
+        Restriccion(int source, int column) {
+            this.source = source;
+            this.column = column;
+        }
+    }
+
+    private AccessPath() {
+    }
+
+    // Devuelve las filas candidatas de cada tabla (null = recorrido completo) y quita de
+    // 'terminos' los que quedan resueltos por el índice
+    static int[][] select(List<Table> tables, ExpressionBinder binder, List<ASTNode> terminos) {
+        int[][] candidatos = new int[tables.size()][];
+        List<Restriccion> restricciones = new ArrayList<>();
+        for (ASTNode termino : terminos) agregar(termino, binder, restricciones);
+
+        for (int t = 0; t < tables.size(); t++) {
+            Table table = tables.get(t);
+            if (table.rowCount() < MIN_FILAS) continue;
+            Restriccion elegida = null;
+            int maximo = table.rowCount() / SELECTIVIDAD;
+            for (Restriccion r : restricciones) {
+                if (r.source != t) continue;
+                int[] filas = candidatas(table, r, maximo);
+                if (filas == null) continue;
+                candidatos[t] = filas;
+                elegida = r;
+                maximo = filas.length - 1; // solo se cambia por una estrictamente mejor
+                if (maximo < 0) break;
+            }
+            if (elegida == null) continue;
+            if (elegida.terminoIgual != null) {
+                ASTNode igual = elegida.terminoIgual;
+                terminos.removeIf(termino -> termino == igual);
+            } else {
+                for (ASTNode rango : elegida.terminosRango) terminos.removeIf(termino -> termino == rango);
+            }
+        }
+        return candidatos;
+    }
+
+    // Filas que cumplen la restricción, o null si son más que 'maximo'
+    private static int[] candidatas(Table table, Restriccion r, int maximo) {
+        if (r.terminoIgual != null) {
+            HashIndex index = table.hashIndex(r.column);
+            int[] filas = r.igual instanceof Double ? index.rows((Double) r.igual) : index.rows((String) r.igual);
+            return filas.length > maximo ? null : filas;
+        }
+        SortedIndex index = table.sortedIndex(r.column);
+        int desde = r.desde == null ? 0 : posicion(index, r.desde, !r.desdeIncluido);
+        int hasta = r.hasta == null ? index.size() : posicion(index, r.hasta, r.hastaIncluido);
+        return hasta - desde > maximo ? null : index.rows(desde, hasta);
+    }
+
+    private static int posicion(SortedIndex index, Object valor, boolean saltarIguales) {
+        return valor instanceof Double ? index.position((Double) valor, saltarIguales) : index.position((String) valor, saltarIguales);
+    }
+
+    // Registra el término si es "campo op literal" o "literal op campo" con tipos compatibles.
+    // Si los tipos no coinciden se deja en el filtro para que ExpressionBinder informe el error.
+    private static void agregar(ASTNode termino, ExpressionBinder binder, List<Restriccion> restricciones) {
+        if (!(termino instanceof RelationalExprNode)) return;
+        RelationalExprNode r = (RelationalExprNode) termino;
+        ASTNode campo = r.left;
+        ASTNode literal = r.right;
+        String operador = r.operator;
+        if (!(campo instanceof FieldNode)) {
+            campo = r.right;
+            literal = r.left;
+            operador = invertir(operador);
+        }
+        if (!(campo instanceof FieldNode) || operador.equals("!=")) return;
+        Object valor;
+        if (literal instanceof NumberNode) {
+            double v = Double.parseDouble(((NumberNode) literal).number);
+            valor = v == 0 ? 0.0 : v;
+        } else if (literal instanceof StringNode) {
+            valor = ExpressionBinder.stringValue((StringNode) literal);
+        } else {
+            return;
+        }
+        ColumnRefExpr ref = binder.resolve((FieldNode) campo);
+        if ((ref.type == ColumnType.NUMBER) != (valor instanceof Double)) return;
+
+        Restriccion restriccion = restriccion(restricciones, ref.source, columna(binder.table(ref.source), ref.column));
+        switch (operador) {
+            case "=":
+                if (restriccion.terminoIgual == null) {
+                    restriccion.terminoIgual = termino;
+                    restriccion.igual = valor;
+                }
+                break;
+            case ">":
+            case ">=": {
+                boolean incluido = operador.equals(">=");
+                int c = restriccion.desde == null ? 1 : comparar(valor, restriccion.desde);
+                if (c > 0 || (c == 0 && !incluido)) {
+                    restriccion.desde = valor;
+                    restriccion.desdeIncluido = incluido;
+                }
+                restriccion.terminosRango.add(termino);
+                break;
+            }
+            default: {
+                boolean incluido = operador.equals("<=");
+                int c = restriccion.hasta == null ? -1 : comparar(valor, restriccion.hasta);
+                if (c < 0 || (c == 0 && !incluido)) {
+                    restriccion.hasta = valor;
+                    restriccion.hastaIncluido = incluido;
+                }
+                restriccion.terminosRango.add(termino);
+                break;
+            }
+        }
+    }
+
+    private static Restriccion restriccion(List<Restriccion> restricciones, int source, int column) {
+        for (Restriccion r : restricciones) {
+            if (r.source == source && r.column == column) return r;
+        }
+        Restriccion r = new Restriccion(source, column);
+        restricciones.add(r);
+        return r;
+    }
+
+    private static int columna(Table table, Column column) {
+        for (int c = 0; ; c++) {
+            if (table.column(c) == column) return c;
+        }
+    }
+
+    // 5 < x es lo mismo que x > 5
+    private static String invertir(String operador) {
+        switch (operador) {
+            case "<": return ">";
+            case "<=": return ">=";
+            case ">": return "<";
+            case ">=": return "<=";
+            default: return operador;
+        }
+    }
+
+    private static int comparar(Object a, Object b) {
+        return a instanceof Double ? Double.compare((Double) a, (Double) b) : ((String) a).compareTo((String) b);
+    }
+}
@@ -0,0 +1,227 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Funciones de agregado del SELECT: count(*), count(x), sum(x), avg(x), min(x) y max(x) sobre
+// las filas que cumplen el WHERE. Sin GROUP BY el resultado es una sola fila, así que todas las
+// proyecciones tienen que ser agregados. sum y avg aceptan números; min, max y count también
+// aceptan texto. count(x) no cuenta las cadenas nulas; min y max ignoran además los NaN.
+// Sin filas, count da 0 y los demás NaN (o una cadena nula), porque las columnas no tienen NULL.
+//
+// El recorrido se reparte con MorselScheduler: cada trabajador tiene sus propias expresiones y un
+// estado parcial de arreglos primitivos, y al final los parciales se combinan.
+final class Aggregation {
+    static final int COUNT = 0, SUM = 1, AVG = 2, MIN = 3, MAX = 4;
+
+    private final int[] funciones;
+    private final ASTNode[] argumentos;  // null en count(*)
+    private final ColumnType[] tipos;    // Tipo del argumento (NUMBER en count(*))
+    private final String[] nombres;
+    private MorselScheduler.Report report;
+
+    Aggregation(SelectNode select, ExpressionBinder binder) {
+        int n = select.fields.size();
+        funciones = new int[n];
+        argumentos = new ASTNode[n];
+        tipos = new ColumnType[n];
+        nombres = new String[n];
+        for (int a = 0; a < n; a++) {
+            ASTNode field = select.fields.get(a);
+            int funcion = field instanceof FunctionNode ? function((FunctionNode) field) : -1;
+            if (funcion < 0) {
+                throw new IllegalArgumentException("Sin GROUP BY no se pueden mezclar agregados con otras proyecciones.");
+            }
+            FunctionNode f = (FunctionNode) field;
+            if (f.arguments.size() != 1) {
+                throw new IllegalArgumentException("La función " + f.name + " espera un argumento.");
+            }
+            ASTNode argumento = f.arguments.get(0);
+            funciones[a] = funcion;
+            if (argumento instanceof StarNode) {
+                if (funcion != COUNT) {
+                    throw new IllegalArgumentException("Solo count acepta *.");
+                }
+                tipos[a] = ColumnType.NUMBER;
+                nombres[a] = f.name + "(*)";
+                continue;
+            }
+            ColumnType tipo = binder.bind(argumento).type;
+            if (tipo == ColumnType.BOOLEAN || (tipo == ColumnType.STRING && (funcion == SUM || funcion == AVG))) {
+                throw new IllegalArgumentException("La función " + f.name + " no acepta " + tipo);
+            }
+            argumentos[a] = argumento;
+            tipos[a] = tipo;
+            nombres[a] = f.name + "(" + (argumento instanceof FieldNode ? ((FieldNode) argumento).name() : "expr") + ")";
+        }
+    }
+
+    // Código del agregado (COUNT...MAX) o -1 si la función no es un agregado
+    static int function(FunctionNode node) {
+        switch (node.name.toLowerCase(Locale.ROOT)) {
+            case "count": return COUNT;
+            case "sum": return SUM;
+            case "avg": return AVG;
+            case "min": return MIN;
+            case "max": return MAX;
+            default: return -1;
+        }
+    }
+
+    static boolean isAggregate(SelectNode select) {
+        for (ASTNode field : select.fields) {
+            if (field instanceof FunctionNode && function((FunctionNode) field) >= 0) return true;
+        }
+        return false;
+    }
+
+    // Métricas por trabajador de la última llamada a run()
+    MorselScheduler.Report report() {
+        return report;
+    }
+
+    // 'filter' ya está resuelto para el hilo que llama (trabajador 0); los demás resuelven el suyo
+    ResultSet run(Relation relation, ExpressionBinder binder, ASTNode condition, VectorExpr filter, boolean compilar,
+            MorselScheduler scheduler) {
+        List<Parcial> parciales = new ArrayList<>();
+        report = scheduler.run(relation.size(), w -> {
+            VectorExpr propio = w == 0 || condition == null ? filter : QueryEngine.bindFilter(condition, binder, compilar);
+            return new Parcial(relation, binder, propio);
+        }, parciales);
+        Parcial resultado = parciales.get(0);
+        for (int w = 1; w < parciales.size(); w++) resultado.combinar(parciales.get(w));
+        return resultado.toResultSet();
+    }
+
+    // Trabajador con su estado parcial: un valor primitivo por agregado
+    private final class Parcial implements MorselScheduler.Worker {
+        final long[] cuentas = new long[funciones.length];
+        final double[] sumas = new double[funciones.length];
+        final double[] numeros = new double[funciones.length];  // min / max numérico; NaN = sin valor
+        final String[] cadenas = new String[funciones.length];  // min / max de texto; null = sin valor
+        private final Relation relation;
+        private final VectorExpr filter;
+        private final VectorExpr[] args = new VectorExpr[funciones.length];
+        private final Batch batch;
+
+        Parcial(Relation relation, ExpressionBinder binder, VectorExpr filter) {
+            this.relation = relation;
+            this.filter = filter;
+            this.batch = new Batch(binder.sources());
+            for (int a = 0; a < args.length; a++) {
+                if (argumentos[a] != null) args[a] = binder.bind(argumentos[a]);
+            }
+            Arrays.fill(numeros, Double.NaN);
+        }
+
+        @Override
+        public void morsel(int index, int from, int to) {
+            for (int desde = from; desde < to; desde += Batch.SIZE) {
+                int hasta = Math.min(desde + Batch.SIZE, to);
+                relation.rows(desde, hasta, batch.rows);
+                batch.n = hasta - desde;
+                if (filter != null) {
+                    filter.eval(batch);
+                    batch.filter(filter.bools);
+                    if (batch.n == 0) continue;
+                }
+                acumular(batch, args);
+            }
+        }
+
+        void acumular(Batch batch, VectorExpr[] args) {
+            int n = batch.n;
+            for (int a = 0; a < funciones.length; a++) {
+                VectorExpr arg = args[a];
+                if (arg == null) {
+                    cuentas[a] += n; // count(*)
+                    continue;
+                }
+                arg.eval(batch);
+                if (tipos[a] == ColumnType.NUMBER) acumularNumeros(a, arg.numbers, n);
+                else acumularCadenas(a, arg.strings, n);
+            }
+        }
+
+        private void acumularNumeros(int a, double[] v, int n) {
+            switch (funciones[a]) {
+                case COUNT:
+                    cuentas[a] += n;
+                    break;
+                case SUM:
+                case AVG: {
+                    double s = 0;
+                    for (int i = 0; i < n; i++) s += v[i];
+                    sumas[a] += s;
+                    cuentas[a] += n;
+                    break;
+                }
+                case MIN: {
+                    double m = numeros[a];
+                    for (int i = 0; i < n; i++) {
+                        if (v[i] < m || m != m) m = v[i];
+                    }
+                    numeros[a] = m;
+                    break;
+                }
+                default: {
+                    double m = numeros[a];
+                    for (int i = 0; i < n; i++) {
+                        if (v[i] > m || m != m) m = v[i];
+                    }
+                    numeros[a] = m;
+                    break;
+                }
+            }
+        }
+
+        private void acumularCadenas(int a, String[] v, int n) {
+            String m = cadenas[a];
+            long c = 0;
+            boolean comparar = funciones[a] != COUNT;
+            boolean minimo = funciones[a] == MIN;
+            for (int i = 0; i < n; i++) {
+                String s = v[i];
+                if (s == null) continue;
+                c++;
+                if (comparar && (m == null || (minimo ? s.compareTo(m) < 0 : s.compareTo(m) > 0))) m = s;
+            }
+            cadenas[a] = m;
+            cuentas[a] += c;
+        }
+
+        void combinar(Parcial otro) {
+            for (int a = 0; a < funciones.length; a++) {
+                cuentas[a] += otro.cuentas[a];
+                sumas[a] += otro.sumas[a];
+                double x = otro.numeros[a];
+                if (funciones[a] == MIN ? x < numeros[a] || numeros[a] != numeros[a] : x > numeros[a] || numeros[a] != numeros[a]) {
+                    numeros[a] = x;
+                }
+                String s = otro.cadenas[a];
+                if (s != null && (cadenas[a] == null || (funciones[a] == MIN ? s.compareTo(cadenas[a]) < 0 : s.compareTo(cadenas[a]) > 0))) {
+                    cadenas[a] = s;
+                }
+            }
+        }
+
+        ResultSet toResultSet() {
+            List<ArrayColumn> output = new ArrayList<>(funciones.length);
+            for (int a = 0; a < funciones.length; a++) {
+                boolean texto = tipos[a] == ColumnType.STRING && (funciones[a] == MIN || funciones[a] == MAX);
+                ArrayColumn c = new ArrayColumn(nombres[a], texto ? ColumnType.STRING : ColumnType.NUMBER, 1);
+                switch (funciones[a]) {
+                    case COUNT: c.add((double) cuentas[a]); break;
+                    case SUM: c.add(cuentas[a] == 0 ? Double.NaN : sumas[a]); break;
+                    case AVG: c.add(cuentas[a] == 0 ? Double.NaN : sumas[a] / cuentas[a]); break;
+                    default:
+                        if (texto) c.add(cadenas[a]);
+                        else c.add(numeros[a]);
+                        break;
+                }
+                output.add(c);
+            }
+            return new ResultSet(output);
+        }
+    }
+}
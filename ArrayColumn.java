@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+// Columna en memoria respaldada por un arreglo primitivo (double[]) o de cadenas
+public class ArrayColumn extends Column {
+    private double[] numbers;
+    private String[] strings;
+    private int size;
+
+    public ArrayColumn(String name, ColumnType type) {
+        this(name, type, 16);
+    }
+
+    public ArrayColumn(String name, ColumnType type, int capacidad) {
+        super(name, type);
+        int n = Math.max(capacidad, 1);
+        if (type == ColumnType.NUMBER) numbers = new double[n];
+        else strings = new String[n];
+    }
+
+    public static ArrayColumn of(String name, double... values) {
+        ArrayColumn c = new ArrayColumn(name, ColumnType.NUMBER, values.length);
+        System.arraycopy(values, 0, c.numbers, 0, values.length);
+        c.size = values.length;
+        return c;
+    }
+
+    public static ArrayColumn of(String name, String... values) {
+        ArrayColumn c = new ArrayColumn(name, ColumnType.STRING, values.length);
+        System.arraycopy(values, 0, c.strings, 0, values.length);
+        c.size = values.length;
+        return c;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double getNumber(int row) {
+        return numbers[row];
+    }
+
+    @Override
+    public String getString(int row) {
+        return type == ColumnType.NUMBER ? formatNumber(numbers[row]) : strings[row];
+    }
+
+    @Override
+    public void gatherNumbers(int[] rows, int n, double[] dst) {
+        double[] v = numbers;
+        for (int i = 0; i < n; i++) dst[i] = v[rows[i]];
+    }
+
+    @Override
+    public void gatherStrings(int[] rows, int n, String[] dst) {
+        String[] v = strings;
+        for (int i = 0; i < n; i++) dst[i] = v[rows[i]];
+    }
+
+    public void add(double value) {
+        if (size == numbers.length) numbers = Arrays.copyOf(numbers, size * 2);
+        numbers[size++] = value;
+    }
+
+    public void add(String value) {
+        if (size == strings.length) strings = Arrays.copyOf(strings, size * 2);
+        strings[size++] = value;
+    }
+
+    // Agrega los primeros n valores de un lote
+    public void addAll(double[] values, int n) {
+        if (size + n > numbers.length) numbers = Arrays.copyOf(numbers, Math.max(size + n, size * 2));
+        System.arraycopy(values, 0, numbers, size, n);
+        size += n;
+    }
+
+    public void addAll(String[] values, int n) {
+        if (size + n > strings.length) strings = Arrays.copyOf(strings, Math.max(size + n, size * 2));
+        System.arraycopy(values, 0, strings, size, n);
+        size += n;
+    }
+
+    // Agrega n valores de otra columna del mismo tipo, desde la fila 'from'
+    public void addAll(ArrayColumn other, int from, int n) {
+        if (type == ColumnType.NUMBER) {
+            if (size + n > numbers.length) numbers = Arrays.copyOf(numbers, Math.max(size + n, size * 2));
+            System.arraycopy(other.numbers, from, numbers, size, n);
+        } else {
+            if (size + n > strings.length) strings = Arrays.copyOf(strings, Math.max(size + n, size * 2));
+            System.arraycopy(other.strings, from, strings, size, n);
+        }
+        size += n;
+    }
+
+    // Quita las primeras n filas; las demás pasan al principio sin cambiar la capacidad
+    public void removeFirst(int n) {
+        int resto = size - n;
+        if (type == ColumnType.NUMBER) {
+            System.arraycopy(numbers, n, numbers, 0, resto);
+        } else {
+            System.arraycopy(strings, n, strings, 0, resto);
+            Arrays.fill(strings, resto, size, null);
+        }
+        size = resto;
+    }
+
+    // Los enteros se muestran sin ".0"
+    static String formatNumber(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Modo por lotes: mapea el script en memoria, lo divide en sentencias y las procesa
+// (Scanner -> Parser -> impresión) en varios hilos. La salida conserva el orden de entrada.
+public class BatchProcessor {
+    // Marca de fin para el hilo escritor
+    private static final Future<String> FIN = CompletableFuture.completedFuture(null);
+
+    private static final String NL = System.lineSeparator();
+    // Cada worker reutiliza su propio buffer de impresión
+    private static final ThreadLocal<BufferedPrinter> IMPRESORES = ThreadLocal.withInitial(BufferedPrinter::new);
+    private static final ThreadLocal<Fingerprinter> HUELLAS = ThreadLocal.withInitial(Fingerprinter::new);
+
+    private final int hilos;
+    private final int capacidad;
+    // Los scripts generados repiten mucho las mismas consultas
+    private final ParseCache cache = new ParseCache(4096, true);
+    private final QueryStats estadisticas = new QueryStats();
+
+    public BatchProcessor(int hilos) {
+        this(hilos, hilos * 64);
+    }
+
+    // capacidad: número máximo de sentencias en vuelo (limita la memoria usada)
+    public BatchProcessor(int hilos, int capacidad) {
+        this.hilos = hilos;
+        this.capacidad = capacidad;
+    }
+
+    public ParseCache getCache() {
+        return cache;
+    }
+
+    // Llamadas, tiempos y tokens por forma de consulta de todos los lotes procesados
+    public QueryStats getEstadisticas() {
+        return estadisticas;
+    }
+
+    public void procesar(Path archivo, PrintStream salida) throws IOException, InterruptedException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("El archivo excede el tamaño máximo de 2 GB: " + archivo);
+            }
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            procesar(new StatementSplitter(datos), salida);
+        }
+    }
+
+    private void procesar(StatementSplitter sentencias, PrintStream salida) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(hilos);
+        // La cola acotada frena al divisor cuando el escritor o los workers se atrasan
+        BlockingQueue<Future<String>> pendientes = new ArrayBlockingQueue<>(capacidad);
+        Thread escritor = new Thread(() -> escribir(pendientes, salida), "batch-escritor");
+        escritor.start();
+        try {
+            int numero = 0;
+            while (sentencias.next()) {
+                String texto = sentencias.texto();
+                String encabezado = "-- Sentencia " + (++numero) + " (línea " + sentencias.linea() + ")";
+                pendientes.put(workers.submit(() -> ejecutar(cache, estadisticas, encabezado, texto)));
+            }
+            pendientes.put(FIN);
+            escritor.join();
+        } finally {
+            workers.shutdownNow();
+        }
+        salida.flush();
+    }
+
+    private static void escribir(BlockingQueue<Future<String>> pendientes, PrintStream salida) {
+        try {
+            while (true) {
+                Future<String> resultado = pendientes.take();
+                if (resultado == FIN) return;
+                try {
+                    salida.print(resultado.get());
+                } catch (ExecutionException e) {
+                    // ejecutar() ya informa sus fallos; igual se sigue vaciando la cola para no bloquear al divisor
+                    salida.print("Error: " + describir(e.getCause()) + NL);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Procesa una sentencia y devuelve su salida completa como texto.
+    // Si 'estadisticas' no es null, registra la forma de cada consulta válida.
+    // Un fallo en una sentencia (por ejemplo, un desborde de pila en una expresión muy anidada) se
+    // informa en su propio bloque: el escritor nunca se detiene y el divisor no queda bloqueado.
+    static String ejecutar(ParseCache cache, QueryStats estadisticas, String encabezado, String source) {
+        try {
+            return analizar(cache, estadisticas, encabezado, source);
+        } catch (Throwable e) {
+            return encabezado + NL + "Error: " + describir(e) + NL;
+        }
+    }
+
+    // Mensaje para un fallo inesperado al procesar una sentencia
+    static String describir(Throwable e) {
+        if (e instanceof StackOverflowError) return "La sentencia tiene demasiados niveles de anidamiento.";
+        return "No se pudo procesar la sentencia (" + e + ").";
+    }
+
+    private static String analizar(ParseCache cache, QueryStats estadisticas, String encabezado, String source) {
+        StringBuilder out = new StringBuilder(512);
+        out.append(encabezado).append(NL);
+        BufferedPrinter printer = IMPRESORES.get();
+
+        QueryNode cached = cache.get(source);
+        if (cached != null) {
+            registrar(estadisticas, cached, 0, 0, 0);
+            printer.renderTo(cached, out);
+            return out.toString();
+        }
+
+        PhaseMetrics.Medicion medicion = PhaseMetrics.iniciar(source.length());
+        long inicio = System.nanoTime();
+        Scanner scanner = new Scanner(source);
+        scanner.setReportarErrores(false);
+        TokenBuffer tokens = scanner.scanCompact();
+        long escaneo = System.nanoTime();
+        if (medicion != null) medicion.scan(tokens.size() - 1);
+        Parser parser = new Parser(tokens.cursor());
+        parser.setReportarErrores(false);
+        QueryNode ast = parser.consulta();
+        long analisis = System.nanoTime();
+        boolean valida = ast != null && !parser.hayErrores() && scanner.getErrores().isEmpty();
+        if (medicion != null) medicion.parse(ast, !valida);
+
+        for (String error : scanner.getErrores()) out.append(error).append(NL);
+        if (ast != null && !parser.hayErrores()) {
+            if (scanner.getErrores().isEmpty()) cache.put(source, ast);
+            registrar(estadisticas, ast, escaneo - inicio, analisis - escaneo, tokens.size() - 1); // Sin contar EOF
+            printer.renderTo(ast, out);
+        } else {
+            for (String error : parser.getErrores()) out.append(error).append(NL);
+            out.append("Error: La consulta tiene errores de sintaxis.").append(NL);
+        }
+        if (medicion != null) medicion.print();
+        return out.toString();
+    }
+
+    private static void registrar(QueryStats estadisticas, QueryNode ast, long nanosScan, long nanosParse, int tokens) {
+        if (estadisticas == null) return;
+        Fingerprinter huella = HUELLAS.get();
+        estadisticas.record(huella.fingerprint(ast), huella.text(), nanosScan, nanosParse, tokens);
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Prueba rápida de rendimiento para Scanner, Parser, PrinterQuery y el recorrido en paralelo.
+// Uso: java Benchmarks [filtro]   (filtro: subcadena del nombre del benchmark)
+// Para cada benchmark mide operaciones por segundo y bytes asignados por operación
+// (contador de asignaciones por hilo de la JVM), tras una fase de calentamiento.
+//
+// Es una sola JVM, sin forks ni intervalos de error: sirve para comparar a ojo. Las mediciones
+// de referencia se hacen con JMH (src/jmh/java), que usa estas mismas operaciones y corpus:
+//   mvn -B -Pjmh package && java -jar target/benchmarks.jar -prof gc
+public class Benchmarks {
+    private static final long CALENTAMIENTO_NS = 1_000_000_000L;
+    private static final long MEDICION_NS = 2_000_000_000L;
+    private static final int FILAS_ESCALADO = 2_000_000;
+
+    // Evita que el JIT elimine el trabajo medido
+    static volatile Object sumidero;
+
+    public static void main(String[] args) {
+        String filtro = args.length > 0 ? args[0] : "";
+        List<Benchmark> benchmarks = new ArrayList<>();
+        agregarConsultas(benchmarks);
+        agregarEscalado(benchmarks);
+
+        System.out.printf("%-36s %16s %16s%n", "Benchmark", "ops/s", "B/op");
+        for (Benchmark b : benchmarks) {
+            if (b.nombre.contains(filtro)) b.ejecutar();
+        }
+    }
+
+    // Operación con el nombre que muestra main() ("parse.compact/corta", "engine.scan/paralelismo-4"...);
+    // la usan los benchmarks de JMH para medir exactamente lo mismo
+    public static Supplier<Object> operacion(String nombre) {
+        String escalado = "engine.scan/paralelismo-";
+        if (nombre.startsWith(escalado)) {
+            Catalog catalog = new Catalog();
+            catalog.register(Corpus.tabla(FILAS_ESCALADO));
+            return recorrido(catalog, Integer.parseInt(nombre.substring(escalado.length())));
+        }
+        List<Benchmark> benchmarks = new ArrayList<>();
+        agregarConsultas(benchmarks);
+        for (Benchmark b : benchmarks) {
+            if (b.nombre.equals(nombre)) return b.operacion;
+        }
+        throw new IllegalArgumentException("Benchmark desconocido: " + nombre);
+    }
+
+    private static void agregarConsultas(List<Benchmark> benchmarks) {
+        agregarCorpus(benchmarks, "corta", Corpus.corta());
+        agregarCorpus(benchmarks, "select-ancho", Corpus.selectAncho(500));
+        agregarCorpus(benchmarks, "where-anidado", Corpus.whereAnidado(200));
+        agregarCorpus(benchmarks, "from-multiple", Corpus.fromMultiple(100));
+        String script = Corpus.scriptConComentarios(2_000);
+        benchmarks.add(new Benchmark("scan.list/script-comentarios", () -> new Scanner(script).scanTokens()));
+        benchmarks.add(new Benchmark("scan.compact/script-comentarios", () -> new Scanner(script).scanCompact()));
+    }
+
+    private static void agregarCorpus(List<Benchmark> benchmarks, String nombre, String sql) {
+        QueryNode ast = new Parser(new Scanner(sql)).consulta();
+        if (ast == null) {
+            throw new IllegalStateException("El corpus " + nombre + " no es una consulta válida.");
+        }
+        TokenBuffer tokens = new Scanner(sql).scanCompact();
+        List<Token> lista = new Scanner(sql).scanTokens();
+        PrintStream nulo = new PrintStream(OutputStream.nullOutputStream());
+
+        benchmarks.add(new Benchmark("scan.list/" + nombre, () -> new Scanner(sql).scanTokens()));
+        benchmarks.add(new Benchmark("scan.compact/" + nombre, () -> new Scanner(sql).scanCompact()));
+        benchmarks.add(new Benchmark("parse.list/" + nombre, () -> new Parser(lista).consulta()));
+        benchmarks.add(new Benchmark("parse.compact/" + nombre, () -> new Parser(tokens.cursor()).consulta()));
+        benchmarks.add(new Benchmark("parse.stream/" + nombre, () -> new Parser(new Scanner(sql)).consulta()));
+        benchmarks.add(new Benchmark("print/" + nombre, () -> {
+            ast.accept(new PrinterQuery(nulo));
+            return ast;
+        }));
+        BufferedPrinter printer = new BufferedPrinter();
+        StringBuilder salida = new StringBuilder();
+        benchmarks.add(new Benchmark("print.buffered/" + nombre, () -> {
+            salida.setLength(0);
+            printer.renderTo(ast, salida);
+            return salida;
+        }));
+        FlatAST arena = new FlatAST();
+        benchmarks.add(new Benchmark("flat.encode/" + nombre, () -> {
+            arena.clear();
+            arena.add(ast);
+            return arena;
+        }));
+        FlatAST plano = new FlatAST();
+        plano.add(ast);
+        benchmarks.add(new Benchmark("flat.decode/" + nombre, () -> plano.toTree(0)));
+    }
+
+    // Misma consulta con 1, 2, 4... trabajadores hasta la cantidad de procesadores, para ver el
+    // escalado del recorrido por morsels (B/op cuenta solo lo asignado en el hilo que llama)
+    private static void agregarEscalado(List<Benchmark> benchmarks) {
+        Catalog catalog = new Catalog();
+        catalog.register(Corpus.tabla(FILAS_ESCALADO));
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        for (int p = 1; ; p = Math.min(p * 2, procesadores)) {
+            benchmarks.add(new Benchmark("engine.scan/paralelismo-" + p, recorrido(catalog, p)));
+            if (p == procesadores) break;
+        }
+    }
+
+    private static Supplier<Object> recorrido(Catalog catalog, int paralelismo) {
+        QueryNode ast = new Parser(new Scanner("select a, b from t where a > 100 and b != 2.5e3;")).consulta();
+        QueryEngine engine = new QueryEngine(catalog);
+        engine.setParallelism(paralelismo);
+        return () -> engine.execute(ast);
+    }
+
+    private static final class Benchmark {
+        final String nombre;
+        final Supplier<Object> operacion;
+
+        Benchmark(String nombre, Supplier<Object> operacion) {
+            this.nombre = nombre;
+            this.operacion = operacion;
+        }
+
+        void ejecutar() {
+            medir(CALENTAMIENTO_NS);
+            com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long hilo = Thread.currentThread().getId();
+            long bytesAntes = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            long ops = medir(MEDICION_NS);
+            long duracion = System.nanoTime() - inicio;
+            long bytes = hilos.getThreadAllocatedBytes(hilo) - bytesAntes;
+            System.out.printf("%-36s %16.1f %16d%n", nombre, ops * 1e9 / duracion, bytes / Math.max(ops, 1));
+        }
+
+        private long medir(long duracionNs) {
+            long fin = System.nanoTime() + duracionNs;
+            long ops = 0;
+            do {
+                // Se revisa el reloj cada 16 operaciones para que no pese en operaciones cortas
+                for (int i = 0; i < 16; i++) sumidero = operacion.get();
+                ops += 16;
+            } while (System.nanoTime() < fin);
+            return ops;
+        }
+    }
+
+    // Generadores de consultas de prueba
+    static final class Corpus {
+        // Tabla t(a, b) con valores pseudoaleatorios repetibles
+        static Table tabla(int filas) {
+            Random random = new Random(42);
+            double[] a = new double[filas];
+            double[] b = new double[filas];
+            for (int i = 0; i < filas; i++) {
+                a[i] = random.nextInt(1000);
+                b[i] = random.nextInt(5000);
+            }
+            return new Table("t", List.of(ArrayColumn.of("a", a), ArrayColumn.of("b", b)));
+        }
+
+        static String corta() {
+            return "select a, b from t where a > 1;";
+        }
+
+        static String selectAncho(int columnas) {
+            StringBuilder sb = new StringBuilder("select ");
+            for (int i = 0; i < columnas; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(i % 3 == 0 ? "t.c" + i : i % 3 == 1 ? "f(c" + i + ", 1)" : "c" + i);
+            }
+            return sb.append(" from t;").toString();
+        }
+
+        static String whereAnidado(int profundidad) {
+            StringBuilder sb = new StringBuilder("select a from t where ");
+            for (int i = 0; i < profundidad; i++) sb.append("(a").append(i).append(" > ").append(i).append(" and ");
+            sb.append("b = \"x\"");
+            for (int i = 0; i < profundidad; i++) sb.append(')');
+            return sb.append(';').toString();
+        }
+
+        static String fromMultiple(int tablas) {
+            StringBuilder sb = new StringBuilder("select * from ");
+            for (int i = 0; i < tablas; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append("tabla").append(i).append(" t").append(i);
+            }
+            sb.append(" where t0.id = t1.id");
+            for (int i = 2; i < tablas; i++) sb.append(" and t").append(i - 1).append(".id = t").append(i).append(".id");
+            return sb.append(';').toString();
+        }
+
+        static String scriptConComentarios(int sentencias) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < sentencias; i++) {
+                sb.append("-- consulta generada número ").append(i).append('\n');
+                sb.append("/* bloque de comentario\n   con varias líneas; ignorado */\n");
+                sb.append("select a").append(i).append(", \"texto ").append(i).append("\" from t").append(i % 10)
+                        .append(" where a > ").append(i).append(" and b != 2.5e3; -- fin\n");
+            }
+            return sb.toString();
+        }
+    }
+}
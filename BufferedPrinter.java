@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Imprime el árbol con el mismo formato que PrinterQuery, pero lo arma en un
+// StringBuilder reutilizable y lo escribe de una sola vez por consulta
+public class BufferedPrinter implements ASTVisitor<Void> {
+    private static final String NL = System.lineSeparator();
+
+    private final StringBuilder sb = new StringBuilder(256);
+
+    // Devuelve el texto del árbol
+    public String render(ASTNode node) {
+        sb.setLength(0);
+        node.accept(this);
+        return sb.toString();
+    }
+
+    // Escribe el texto del árbol en out con una sola llamada
+    public void renderTo(ASTNode node, Appendable out) {
+        sb.setLength(0);
+        node.accept(this);
+        try {
+            out.append(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void line(String text) {
+        sb.append(text).append(NL);
+    }
+
+    @Override
+    public Void visit(QueryNode node) {
+        line("*Query:");
+        boolean distinct = node.select instanceof SelectNode && ((SelectNode) node.select).distinct;
+        line(distinct ? "  - Select DISTINCT:" : "  - Select:");
+        if (node.select != null) {
+            node.select.accept(this);
+        } else {
+            line("    - null");
+        }
+
+        line("  - From:");
+        if (node.from != null) {
+            for (FromNode table : node.from) {
+                table.accept(this);
+            }
+        } else {
+            line("    - null");
+        }
+
+        line("  - Where:");
+        if (node.where != null) {
+            node.where.accept(this);
+        } else {
+            line("    - null");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(SelectNode node) {
+        for (ASTNode field : node.fields) {
+            field.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(FromNode node) {
+        sb.append("    - TableExpr<").append(node.table.name);
+        if (node.alias != null) sb.append(" AS ").append(node.alias.name);
+        sb.append('>').append(NL);
+        return null;
+    }
+
+    @Override
+    public Void visit(WhereNode node) {
+        if (node.condition != null) {
+            node.condition.accept(this);
+        } else {
+            line("    - null");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ArithmeticExprNode node) {
+        line("    - ArithmeticExpr:");
+        line("      Left:");
+        node.left.accept(this);
+        sb.append("      Operator: ").append(node.operator).append(NL);
+        line("      Right:");
+        node.right.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(StarNode node) {
+        line("    - *");
+        return null;
+    }
+
+    @Override
+    public Void visit(FieldNode node) {
+        sb.append("    - FieldExpr: ").append(node.name()).append(NL);
+        return null;
+    }
+
+    @Override
+    public Void visit(NumberNode node) {
+        sb.append("    - Number: ").append(node.number).append(NL);
+        return null;
+    }
+
+    @Override
+    public Void visit(StringNode node) {
+        sb.append("    - String: ").append(node.value).append(NL);
+        return null;
+    }
+
+    @Override
+    public Void visit(BooleanNode node) {
+        line(node.value ? "    - Boolean: TRUE" : "    - Boolean: FALSE");
+        return null;
+    }
+
+    @Override
+    public Void visit(NullNode node) {
+        line("    - Null");
+        return null;
+    }
+
+    @Override
+    public Void visit(ParameterNode node) {
+        sb.append("    - Parameter: ?").append(node.index + 1).append(NL);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionNode node) {
+        sb.append("    - Function: ").append(node.name).append(NL);
+        line("      Arguments:");
+        for (ASTNode arg : node.arguments) {
+            arg.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(LogicalExprNode node) {
+        sb.append("    - LogicalExpr: ").append(node.operator).append(NL);
+        line("      Left:");
+        node.left.accept(this);
+        line("      Right:");
+        node.right.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(RelationalExprNode node) {
+        sb.append("    - RelationalExpr: ").append(node.operator).append(NL);
+        line("      Left:");
+        node.left.accept(this);
+        line("      Right:");
+        node.right.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(NotNode node) {
+        line("    - NotExpr:");
+        line("      Operand:");
+        node.operand.accept(this);
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registro de tablas disponibles para las cláusulas FROM.
+// Con un directorio de datos, una tabla que no se registró se busca como archivo la primera vez
+// que se pide:
+//   <nombre>.col  se mapea en memoria (ColumnarFile), sin copiar los datos al heap
+//   <nombre>.csv  se importa una sola vez a <nombre>.col y se mapea; si el .col ya existe y no es
+//                 más antiguo que el CSV, se reutiliza sin volver a importar
+public class Catalog {
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final Path directorio;
+
+    public Catalog() {
+        this(null);
+    }
+
+    public Catalog(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    public void register(Table table) {
+        tables.put(table.name(), table);
+    }
+
+    public Table get(String name) {
+        Table table = tables.get(name);
+        if (table != null || directorio == null) return table;
+        return tables.computeIfAbsent(name, this::cargar);
+    }
+
+    public Table require(String name) {
+        Table table = get(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Tabla no encontrada: " + name);
+        }
+        return table;
+    }
+
+    // Devuelve null si no hay archivo para la tabla
+    private Table cargar(String name) {
+        if (name.indexOf('/') >= 0 || name.indexOf('\\') >= 0 || name.startsWith(".")) return null;
+        Path columnar = directorio.resolve(name + ".col");
+        Path csv = directorio.resolve(name + ".csv");
+        try {
+            if (Files.exists(csv)
+                    && (!Files.exists(columnar) || Files.getLastModifiedTime(columnar).compareTo(Files.getLastModifiedTime(csv)) < 0)) {
+                ColumnarFile.importCsv(csv, columnar);
+            }
+            return Files.exists(columnar) ? ColumnarFile.open(name, columnar) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cargar la tabla " + name, e);
+        }
+    }
+}
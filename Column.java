@@ -0,0 +1,37 @@
+// Columna de una tabla: los valores se leen por lotes de filas para no hacer
+// una llamada virtual ni crear un objeto por valor.
+public abstract class Column {
+    final String name;
+    final ColumnType type;
+
+    protected Column(String name, ColumnType type) {
+        if (type == ColumnType.BOOLEAN) {
+            throw new IllegalArgumentException("Las columnas solo pueden ser numéricas o de texto.");
+        }
+        this.name = name;
+        this.type = type;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public ColumnType type() {
+        return type;
+    }
+
+    public abstract int size();
+
+    public abstract double getNumber(int row);
+
+    public abstract String getString(int row);
+
+    // Copia en dst los valores de las filas indicadas
+    public void gatherNumbers(int[] rows, int n, double[] dst) {
+        for (int i = 0; i < n; i++) dst[i] = getNumber(rows[i]);
+    }
+
+    public void gatherStrings(int[] rows, int n, String[] dst) {
+        for (int i = 0; i < n; i++) dst[i] = getString(rows[i]);
+    }
+}
@@ -0,0 +1,5 @@
+// Tipos de valores que maneja el motor de ejecución.
+// BOOLEAN solo aparece en resultados intermedios (predicados), no en columnas de tablas.
+public enum ColumnType {
+    NUMBER, STRING, BOOLEAN
+}
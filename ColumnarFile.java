@@ -0,0 +1,293 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Formato columnar binario para tablas (extensión .col), pensado para leerse con FileChannel.map:
+//
+//   cabecera:  "QCOL" | versión | filas | columnas, y por columna:
+//              longitud del nombre | nombre UTF-8 | tipo (0 = NUMBER, 1 = STRING) | posición (long) | longitud (long)
+//   datos:     cada columna empieza alineada a 8 bytes, en little-endian
+//              NUMBER: filas doubles;  STRING: filas + 1 desplazamientos int y los bytes UTF-8
+//
+// Cada columna se mapea por separado, así que la tabla puede superar los 2 GB mientras
+// ninguna columna lo haga. Los valores vacíos de una columna numérica se guardan como NaN.
+public final class ColumnarFile {
+    private static final int MAGICO = 0x51434f4c; // "QCOL"
+    private static final int VERSION = 1;
+    private static final int BUFFER = 1 << 16;
+
+    private ColumnarFile() {
+    }
+
+    // Mapea un archivo .col como tabla de solo lectura
+    public static Table open(String name, Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer inicio = ByteBuffer.allocate(16);
+            leerCompleto(canal, inicio, 0);
+            inicio.flip();
+            if (inicio.getInt() != MAGICO) throw new IOException("No es un archivo columnar: " + archivo);
+            int version = inicio.getInt();
+            if (version != VERSION) throw new IOException("Versión de archivo columnar no soportada: " + version);
+            int filas = inicio.getInt();
+            int columnas = inicio.getInt();
+
+            MappedByteBuffer cabecera = canal.map(FileChannel.MapMode.READ_ONLY, 16, Math.min(canal.size() - 16, 1 << 20));
+            List<Column> lista = new ArrayList<>(columnas);
+            for (int i = 0; i < columnas; i++) {
+                byte[] nombre = new byte[cabecera.getInt()];
+                cabecera.get(nombre);
+                byte tipo = cabecera.get();
+                long posicion = cabecera.getLong();
+                long longitud = cabecera.getLong();
+                if (longitud > Integer.MAX_VALUE) {
+                    throw new IOException("La columna excede 2 GB: " + new String(nombre, StandardCharsets.UTF_8));
+                }
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, posicion, longitud).order(ByteOrder.LITTLE_ENDIAN);
+                String columna = new String(nombre, StandardCharsets.UTF_8);
+                if (tipo == 0) {
+                    lista.add(MappedColumn.numbers(columna, filas, datos.asDoubleBuffer()));
+                } else {
+                    int bytesOffsets = 4 * (filas + 1);
+                    ByteBuffer offsets = datos.duplicate().order(ByteOrder.LITTLE_ENDIAN).limit(bytesOffsets);
+                    ByteBuffer texto = datos.duplicate().position(bytesOffsets).slice();
+                    lista.add(MappedColumn.strings(columna, filas, offsets.asIntBuffer(), texto));
+                }
+            }
+            // El mapeo sigue válido después de cerrar el canal
+            return new Table(name, lista);
+        }
+    }
+
+    // Guarda una tabla (por ejemplo, una ya cargada en memoria) en formato columnar
+    public static void write(Table table, Path archivo) throws IOException {
+        int columnas = table.columns().size();
+        int filas = table.rowCount();
+        String[] nombres = new String[columnas];
+        ColumnType[] tipos = new ColumnType[columnas];
+        long[] bytesTexto = new long[columnas];
+        for (int c = 0; c < columnas; c++) {
+            Column col = table.column(c);
+            nombres[c] = col.name();
+            tipos[c] = col.type();
+            if (tipos[c] == ColumnType.STRING) {
+                for (int r = 0; r < filas; r++) bytesTexto[c] += utf8(col.getString(r)).length;
+            }
+        }
+        try (Escritor escritor = new Escritor(archivo, nombres, tipos, filas, bytesTexto)) {
+            for (int r = 0; r < filas; r++) {
+                for (int c = 0; c < columnas; c++) {
+                    Column col = table.column(c);
+                    if (tipos[c] == ColumnType.NUMBER) escritor.numero(c, col.getNumber(r));
+                    else escritor.cadena(c, utf8(col.getString(r)));
+                }
+            }
+        }
+    }
+
+    // Importa un CSV con encabezado en dos pasadas sin cargarlo en memoria: la primera deduce
+    // el tipo de cada columna (NUMBER si todos sus valores no vacíos son números) y los tamaños,
+    // la segunda escribe las columnas. El archivo se escribe aparte y se renombra al terminar.
+    public static void importCsv(Path csv, Path archivo) throws IOException {
+        String[] nombres;
+        boolean[] numerica;
+        long[] bytesTexto;
+        int filas = 0;
+        try (CsvReader lector = new CsvReader(csv)) {
+            nombres = lector.next();
+            if (nombres == null) throw new IOException("El CSV está vacío: " + csv);
+            numerica = new boolean[nombres.length];
+            java.util.Arrays.fill(numerica, true);
+            bytesTexto = new long[nombres.length];
+            String[] registro;
+            while ((registro = lector.next()) != null) {
+                validar(registro, nombres.length, lector, csv);
+                for (int c = 0; c < registro.length; c++) {
+                    bytesTexto[c] += utf8(registro[c]).length;
+                    if (numerica[c] && !registro[c].isEmpty() && !esNumero(registro[c])) numerica[c] = false;
+                }
+                if (++filas < 0) throw new IOException("El CSV tiene demasiadas filas: " + csv);
+            }
+        }
+
+        ColumnType[] tipos = new ColumnType[nombres.length];
+        for (int c = 0; c < tipos.length; c++) tipos[c] = numerica[c] ? ColumnType.NUMBER : ColumnType.STRING;
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (CsvReader lector = new CsvReader(csv);
+             Escritor escritor = new Escritor(temporal, nombres, tipos, filas, bytesTexto)) {
+            lector.next();
+            String[] registro;
+            while ((registro = lector.next()) != null) {
+                for (int c = 0; c < registro.length; c++) {
+                    if (tipos[c] == ColumnType.STRING) escritor.cadena(c, utf8(registro[c]));
+                    else escritor.numero(c, registro[c].isEmpty() ? Double.NaN : Double.parseDouble(registro[c]));
+                }
+            }
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Carga un CSV completo en memoria (columnas ArrayColumn), con la misma deducción de tipos
+    public static Table readCsv(String name, Path csv) throws IOException {
+        List<String[]> registros = new ArrayList<>();
+        String[] nombres;
+        try (CsvReader lector = new CsvReader(csv)) {
+            nombres = lector.next();
+            if (nombres == null) throw new IOException("El CSV está vacío: " + csv);
+            String[] registro;
+            while ((registro = lector.next()) != null) {
+                validar(registro, nombres.length, lector, csv);
+                registros.add(registro);
+            }
+        }
+        List<Column> columnas = new ArrayList<>(nombres.length);
+        for (int c = 0; c < nombres.length; c++) {
+            boolean numerica = true;
+            for (String[] r : registros) {
+                if (!r[c].isEmpty() && !esNumero(r[c])) {
+                    numerica = false;
+                    break;
+                }
+            }
+            ArrayColumn columna = new ArrayColumn(nombres[c], numerica ? ColumnType.NUMBER : ColumnType.STRING, registros.size());
+            for (String[] r : registros) {
+                if (numerica) columna.add(r[c].isEmpty() ? Double.NaN : Double.parseDouble(r[c]));
+                else columna.add(r[c]);
+            }
+            columnas.add(columna);
+        }
+        return new Table(name, columnas);
+    }
+
+    private static void validar(String[] registro, int columnas, CsvReader lector, Path csv) throws IOException {
+        if (registro.length != columnas) {
+            throw new IOException(csv + ": el registro " + lector.registro() + " tiene " + registro.length
+                    + " campos en lugar de " + columnas);
+        }
+    }
+
+    private static boolean esNumero(String s) {
+        try {
+            Double.parseDouble(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int n = canal.read(destino, posicion + destino.position());
+            if (n < 0) throw new IOException("Archivo columnar truncado");
+        }
+    }
+
+    // Escribe las columnas fila por fila: cada columna tiene su propio buffer, que se vacía
+    // con escrituras posicionales en la región que le corresponde del archivo.
+    private static final class Escritor implements AutoCloseable {
+        private final FileChannel canal;
+        private final ByteBuffer[] datos;     // doubles o bytes de texto
+        private final ByteBuffer[] offsets;   // solo columnas STRING
+        private final long[] posDatos;
+        private final long[] posOffsets;
+        private final int[] siguienteOffset;
+
+        Escritor(Path archivo, String[] nombres, ColumnType[] tipos, int filas, long[] bytesTexto) throws IOException {
+            int columnas = nombres.length;
+            byte[][] nombresUtf8 = new byte[columnas][];
+            long cabecera = 16;
+            for (int c = 0; c < columnas; c++) {
+                nombresUtf8[c] = utf8(nombres[c]);
+                cabecera += 4 + nombresUtf8[c].length + 1 + 8 + 8;
+            }
+            if (cabecera > 1 << 20) throw new IOException("Demasiadas columnas para la cabecera");
+
+            datos = new ByteBuffer[columnas];
+            offsets = new ByteBuffer[columnas];
+            posDatos = new long[columnas];
+            posOffsets = new long[columnas];
+            siguienteOffset = new int[columnas];
+            ByteBuffer encabezado = ByteBuffer.allocate((int) cabecera);
+            encabezado.putInt(MAGICO).putInt(VERSION).putInt(filas).putInt(columnas);
+            long posicion = alinear(cabecera);
+            for (int c = 0; c < columnas; c++) {
+                long longitud;
+                if (tipos[c] == ColumnType.NUMBER) {
+                    longitud = 8L * filas;
+                    posDatos[c] = posicion;
+                } else {
+                    if (bytesTexto[c] > Integer.MAX_VALUE - 4L * (filas + 1)) {
+                        throw new IOException("La columna " + nombres[c] + " excede 2 GB de texto");
+                    }
+                    longitud = 4L * (filas + 1) + bytesTexto[c];
+                    posOffsets[c] = posicion;
+                    posDatos[c] = posicion + 4L * (filas + 1);
+                    offsets[c] = ByteBuffer.allocate(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+                    offsets[c].putInt(0);
+                }
+                datos[c] = ByteBuffer.allocate(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+                encabezado.putInt(nombresUtf8[c].length).put(nombresUtf8[c]);
+                encabezado.put((byte) (tipos[c] == ColumnType.NUMBER ? 0 : 1)).putLong(posicion).putLong(longitud);
+                posicion = alinear(posicion + longitud);
+            }
+
+            canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            encabezado.flip();
+            while (encabezado.hasRemaining()) canal.write(encabezado, encabezado.position());
+        }
+
+        void numero(int c, double valor) throws IOException {
+            if (datos[c].remaining() < 8) posDatos[c] = vaciar(datos[c], posDatos[c]);
+            datos[c].putDouble(valor);
+        }
+
+        void cadena(int c, byte[] valor) throws IOException {
+            siguienteOffset[c] += valor.length;
+            if (offsets[c].remaining() < 4) posOffsets[c] = vaciar(offsets[c], posOffsets[c]);
+            offsets[c].putInt(siguienteOffset[c]);
+            int escrito = 0;
+            while (escrito < valor.length) {
+                if (!datos[c].hasRemaining()) posDatos[c] = vaciar(datos[c], posDatos[c]);
+                int n = Math.min(datos[c].remaining(), valor.length - escrito);
+                datos[c].put(valor, escrito, n);
+                escrito += n;
+            }
+        }
+
+        private long vaciar(ByteBuffer buffer, long posicion) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) posicion += canal.write(buffer, posicion);
+            buffer.clear();
+            return posicion;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                for (int c = 0; c < datos.length; c++) {
+                    posDatos[c] = vaciar(datos[c], posDatos[c]);
+                    if (offsets[c] != null) posOffsets[c] = vaciar(offsets[c], posOffsets[c]);
+                }
+            } finally {
+                canal.close();
+            }
+        }
+    }
+
+    private static long alinear(long posicion) {
+        return (posicion + 7) & ~7L;
+    }
+}
@@ -0,0 +1,7 @@
+// Predicado del WHERE compilado a bytecode. Evalúa un lote completo en un solo ciclo:
+// numbers[k][i] / strings[k][i] son los valores de la k-ésima columna usada en la posición i,
+// y numConsts / strConsts los literales de la consulta, para que consultas con la misma
+// forma y distintos literales compartan la clase generada.
+public interface CompiledPredicate {
+    void test(double[][] numbers, String[][] strings, double[] numConsts, String[] strConsts, int n, boolean[] out);
+}
@@ -0,0 +1,81 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector de CSV por registros, sin cargar el archivo completo: separador ',', campos entre
+// comillas dobles (con "" como comilla escapada) que pueden contener comas y saltos de línea.
+public class CsvReader implements Closeable {
+    private final BufferedReader reader;
+    private final StringBuilder campo = new StringBuilder();
+    private final List<String> campos = new ArrayList<>();
+    private int registro = 0;
+
+    public CsvReader(Path archivo) throws IOException {
+        this.reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+    }
+
+    // Número del último registro leído (el encabezado es el 1)
+    public int registro() {
+        return registro;
+    }
+
+    // Campos del siguiente registro; null al llegar al final. Las líneas vacías se omiten.
+    public String[] next() throws IOException {
+        campos.clear();
+        campo.setLength(0);
+        boolean entreComillas = false;
+        boolean vacio = true;
+        int c;
+        while ((c = reader.read()) >= 0) {
+            if (entreComillas) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        campo.append('"');
+                    } else {
+                        reader.reset();
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+                continue;
+            }
+            if (c == '"') {
+                entreComillas = true;
+                vacio = false;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                vacio = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') reader.reset();
+                }
+                if (vacio && campo.length() == 0) continue; // Línea vacía
+                break;
+            } else {
+                campo.append((char) c);
+                vacio = false;
+            }
+        }
+        if (entreComillas) {
+            throw new IOException("Comillas sin cerrar en el registro " + (registro + 1));
+        }
+        if (c < 0 && vacio && campo.length() == 0) return null;
+        campos.add(campo.toString());
+        registro++;
+        return campos.toArray(new String[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,237 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// Eliminación de filas repetidas para SELECT DISTINCT. Cada fila proyectada se codifica como
+// una clave binaria (por columna: NUMBER = 8 bytes con los bits del double; STRING = largo en
+// 4 bytes, -1 si es nula, y sus caracteres en 2 bytes cada uno) y se busca en un DistinctSet.
+// Las filas nuevas se agregan al resultado en el orden en que aparecen por primera vez.
+//
+// Cuando el conjunto llegaría a ocupar más que el presupuesto de memoria, deja de crecer: las
+// claves que ya están se descartan y las demás se escriben en PARTICIONES archivos temporales
+// según los bits altos de su hash. Al final cada partición se procesa por separado con el
+// conjunto vacío (dos filas iguales siempre caen en la misma) y, si tampoco entra, se vuelve a
+// particionar con los bits siguientes. Esas filas se agregan después de las que sí entraron.
+final class Distinct implements AutoCloseable {
+    static final int PARTICIONES = 16;
+    // Con menos memoria cada pasada aceptaría muy pocas claves y habría un archivo casi por fila
+    static final long MIN_MEMORIA = 1 << 20;
+    private static final int BITS = 4;
+    // Con 64 bits de hash caben 15 niveles; pasado eso el conjunto crece sin límite
+    private static final int MAX_NIVEL = 15;
+
+    private final ColumnType[] tipos;
+    private final List<ArrayColumn> output;
+    private final long memoria;
+    private final DistinctSet conjunto = new DistinctSet();
+    private byte[] clave = new byte[64];
+    private Particiones derrame;
+    private boolean lleno; // Una vez lleno el conjunto no vuelve a crecer hasta el próximo clear()
+    private long derramadas;
+
+    Distinct(List<ArrayColumn> output, long memoria) {
+        this.output = output;
+        this.memoria = Math.max(memoria, MIN_MEMORIA);
+        this.tipos = new ColumnType[output.size()];
+        for (int c = 0; c < tipos.length; c++) tipos[c] = output.get(c).type();
+    }
+
+    // Filas que tuvieron que pasar por disco
+    long spilledRows() {
+        return derramadas;
+    }
+
+    // Agrega las primeras n filas del lote ya evaluado por las proyecciones
+    void add(List<VectorExpr> projections, int n) {
+        for (int i = 0; i < n; i++) {
+            int largo = 0;
+            for (int c = 0; c < tipos.length; c++) {
+                VectorExpr expr = projections.get(c);
+                largo = tipos[c] == ColumnType.NUMBER ? escribir(largo, expr.numbers[i]) : escribir(largo, expr.strings[i]);
+            }
+            procesar(clave, largo, 0);
+        }
+    }
+
+    // Procesa las particiones pendientes y borra los archivos temporales
+    void finish() {
+        if (derrame == null) return;
+        Particiones pendientes = derrame;
+        derrame = null;
+        vaciar(pendientes);
+    }
+
+    // Borra los archivos temporales si finish() no llegó a procesarlos (por ejemplo, tras un error)
+    @Override
+    public void close() {
+        if (derrame != null) derrame.delete();
+        derrame = null;
+    }
+
+    private void procesar(byte[] k, int largo, int nivel) {
+        long hash = hash(k, largo);
+        // Un conjunto vacío siempre acepta la clave: cada pasada sobre una partición avanza
+        if (!lleno && nivel < MAX_NIVEL && conjunto.size() > 0 && conjunto.memoryAfterAdd(largo) > memoria) lleno = true;
+        if (!lleno) {
+            if (conjunto.add(k, largo, hash)) emitir(k, largo);
+        } else if (!conjunto.contains(k, largo, hash)) {
+            if (derrame == null) derrame = new Particiones(nivel);
+            derrame.write(k, largo, hash);
+            derramadas++;
+        }
+    }
+
+    // Deduplica partición por partición; lo que no entra va a particiones del nivel siguiente
+    private void vaciar(Particiones particiones) {
+        try {
+            particiones.close();
+            for (int p = 0; p < PARTICIONES; p++) {
+                if (particiones.archivos[p] == null) continue;
+                conjunto.clear();
+                lleno = false;
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(particiones.archivos[p]), 1 << 16))) {
+                    while (true) {
+                        int largo;
+                        try {
+                            largo = in.readInt();
+                        } catch (EOFException e) {
+                            break;
+                        }
+                        if (largo > clave.length) clave = new byte[Math.max(largo, clave.length * 2)];
+                        in.readFully(clave, 0, largo);
+                        procesar(clave, largo, particiones.nivel + 1);
+                    }
+                }
+                Files.delete(particiones.archivos[p]);
+                particiones.archivos[p] = null;
+                if (derrame != null) {
+                    Particiones siguientes = derrame;
+                    derrame = null;
+                    vaciar(siguientes);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el derrame de DISTINCT", e);
+        } finally {
+            particiones.delete();
+        }
+    }
+
+    private void emitir(byte[] k, int largo) {
+        int pos = 0;
+        for (int c = 0; c < tipos.length; c++) {
+            if (tipos[c] == ColumnType.NUMBER) {
+                output.get(c).add(Double.longBitsToDouble(leerLong(k, pos)));
+                pos += 8;
+                continue;
+            }
+            int n = leerInt(k, pos);
+            pos += 4;
+            if (n < 0) {
+                output.get(c).add((String) null);
+                continue;
+            }
+            char[] chars = new char[n];
+            for (int i = 0; i < n; i++, pos += 2) chars[i] = (char) (((k[pos] & 0xff) << 8) | (k[pos + 1] & 0xff));
+            output.get(c).add(new String(chars));
+        }
+    }
+
+    // -0.0 se guarda como 0.0 y todos los NaN con los mismos bits, para que sean iguales entre sí
+    private int escribir(int pos, double v) {
+        asegurar(pos + 8);
+        long bits = Double.doubleToLongBits(v == 0 ? 0.0 : v);
+        for (int s = 56; s >= 0; s -= 8) clave[pos++] = (byte) (bits >>> s);
+        return pos;
+    }
+
+    private int escribir(int pos, String v) {
+        int n = v == null ? -1 : v.length();
+        asegurar(pos + 4 + 2 * Math.max(n, 0));
+        for (int s = 24; s >= 0; s -= 8) clave[pos++] = (byte) (n >>> s);
+        for (int i = 0; i < n; i++) {
+            char ch = v.charAt(i);
+            clave[pos++] = (byte) (ch >>> 8);
+            clave[pos++] = (byte) ch;
+        }
+        return pos;
+    }
+
+    private void asegurar(int largo) {
+        if (largo > clave.length) clave = Arrays.copyOf(clave, Math.max(largo, clave.length * 2));
+    }
+
+    private static long leerLong(byte[] k, int pos) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = (v << 8) | (k[pos + i] & 0xff);
+        return v;
+    }
+
+    private static int leerInt(byte[] k, int pos) {
+        return ((k[pos] & 0xff) << 24) | ((k[pos + 1] & 0xff) << 16) | ((k[pos + 2] & 0xff) << 8) | (k[pos + 3] & 0xff);
+    }
+
+    // FNV-1a de 64 bits con una mezcla final para que también los bits bajos estén repartidos
+    private static long hash(byte[] k, int largo) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < largo; i++) h = (h ^ (k[i] & 0xff)) * 0x100000001b3L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    // Archivos temporales de un nivel de particionado; se crean a medida que reciben claves
+    private static final class Particiones {
+        final int nivel;
+        final Path[] archivos = new Path[PARTICIONES];
+        private final DataOutputStream[] salidas = new DataOutputStream[PARTICIONES];
+
+        Particiones(int nivel) {
+            this.nivel = nivel;
+        }
+
+        void write(byte[] k, int largo, long hash) {
+            int p = (int) (hash >>> (64 - BITS * (nivel + 1))) & (PARTICIONES - 1);
+            try {
+                if (salidas[p] == null) {
+                    archivos[p] = Files.createTempFile("distinct-" + nivel + "-" + p + "-", ".tmp");
+                    salidas[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivos[p]), 1 << 16));
+                }
+                salidas[p].writeInt(largo);
+                salidas[p].write(k, 0, largo);
+            } catch (IOException e) {
+                delete();
+                throw new UncheckedIOException("No se pudo escribir el derrame de DISTINCT", e);
+            }
+        }
+
+        void close() throws IOException {
+            for (int p = 0; p < PARTICIONES; p++) {
+                if (salidas[p] != null) salidas[p].close();
+                salidas[p] = null;
+            }
+        }
+
+        // Cierra y borra lo que quede (también después de un error)
+        void delete() {
+            for (int p = 0; p < PARTICIONES; p++) {
+                try {
+                    if (salidas[p] != null) salidas[p].close();
+                    if (archivos[p] != null) Files.deleteIfExists(archivos[p]);
+                } catch (IOException e) {
+                    // El archivo temporal queda en el directorio del sistema; no afecta al resultado
+                }
+                salidas[p] = null;
+                archivos[p] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+// Conjunto hash de claves binarias para DISTINCT. Las claves se copian una detrás de otra en un
+// solo byte[] (sin un objeto por clave) y la tabla de ranuras usa direccionamiento abierto con
+// sondeo lineal; cada clave guarda su hash para no comparar bytes de claves distintas.
+final class DistinctSet {
+    private byte[] datos;
+    private int usados;
+    private int[] inicio;   // inicio[k], inicio[k + 1]: rango de la clave k
+    private long[] hashes;
+    private int claves;
+    private int[] ranuras;  // clave + 1; 0 = libre
+    private int mascara;
+
+    DistinctSet() {
+        clear();
+    }
+
+    int size() {
+        return claves;
+    }
+
+    // Bytes ocupados por los arreglos del conjunto
+    long memory() {
+        return datos.length + 4L * inicio.length + 8L * hashes.length + 4L * ranuras.length;
+    }
+
+    // Memoria que tendría el conjunto después de agregar una clave de 'largo' bytes
+    long memoryAfterAdd(int largo) {
+        long extra = 0;
+        if (usados + largo > datos.length) extra += Math.max(datos.length, largo);
+        if (claves + 2 > inicio.length) extra += 12L * inicio.length;
+        if ((claves + 1) * 2 > ranuras.length) extra += 4L * ranuras.length;
+        return memory() + extra;
+    }
+
+    boolean contains(byte[] clave, int largo, long hash) {
+        return ranuras[buscar(clave, largo, hash)] != 0;
+    }
+
+    // Agrega la clave si no estaba; devuelve true si es nueva
+    boolean add(byte[] clave, int largo, long hash) {
+        int r = buscar(clave, largo, hash);
+        if (ranuras[r] != 0) return false;
+        if (usados + largo > datos.length) datos = Arrays.copyOf(datos, Math.max(datos.length * 2, usados + largo));
+        if (claves + 2 > inicio.length) {
+            inicio = Arrays.copyOf(inicio, inicio.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        System.arraycopy(clave, 0, datos, usados, largo);
+        inicio[claves] = usados;
+        hashes[claves] = hash;
+        usados += largo;
+        inicio[claves + 1] = usados;
+        ranuras[r] = ++claves;
+        if (claves * 2 > ranuras.length) agrandar();
+        return true;
+    }
+
+    // Vuelve a los arreglos iniciales, para que memory() mida solo lo que se agregue después
+    void clear() {
+        datos = new byte[1 << 12];
+        usados = 0;
+        inicio = new int[64];
+        hashes = new long[64];
+        claves = 0;
+        ranuras = new int[128];
+        mascara = 127;
+    }
+
+    private int buscar(byte[] clave, int largo, long hash) {
+        for (int r = (int) hash & mascara; ; r = (r + 1) & mascara) {
+            int k = ranuras[r] - 1;
+            if (k < 0) return r;
+            if (hashes[k] == hash && Arrays.equals(datos, inicio[k], inicio[k + 1], clave, 0, largo)) return r;
+        }
+    }
+
+    private void agrandar() {
+        ranuras = new int[ranuras.length * 2];
+        mascara = ranuras.length - 1;
+        for (int k = 0; k < claves; k++) {
+            int r = (int) hashes[k] & mascara;
+            while (ranuras[r] != 0) r = (r + 1) & mascara;
+            ranuras[r] = k + 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.List;
+
+// Resuelve las expresiones del AST contra las tablas del FROM y las convierte en VectorExpr
+class ExpressionBinder {
+    private final List<Table> tables;
+    private final List<Symbol> aliases;
+
+    ExpressionBinder(List<Table> tables, List<Symbol> aliases) {
+        this.tables = tables;
+        this.aliases = aliases;
+    }
+
+    int sources() {
+        return tables.size();
+    }
+
+    Table table(int source) {
+        return tables.get(source);
+    }
+
+    VectorExpr bind(ASTNode node) {
+        if (node instanceof FieldNode) {
+            return resolve((FieldNode) node);
+        } else if (node instanceof NumberNode) {
+            return new ConstantExpr(Double.parseDouble(((NumberNode) node).number));
+        } else if (node instanceof StringNode) {
+            return new ConstantExpr(stringValue((StringNode) node));
+        } else if (node instanceof BooleanNode) {
+            return new ConstantExpr(((BooleanNode) node).value);
+        } else if (node instanceof ParameterNode) {
+            throw new IllegalArgumentException("Parámetro sin valor: ?" + (((ParameterNode) node).index + 1));
+        } else if (node instanceof NullNode) {
+            throw new IllegalArgumentException("NULL no está soportado en la ejecución.");
+        } else if (node instanceof ArithmeticExprNode) {
+            ArithmeticExprNode a = (ArithmeticExprNode) node;
+            VectorExpr left = expect(bind(a.left), ColumnType.NUMBER, a.operator);
+            VectorExpr right = expect(bind(a.right), ColumnType.NUMBER, a.operator);
+            return new ArithmeticExpr(a.operator.charAt(0), left, right);
+        } else if (node instanceof RelationalExprNode) {
+            RelationalExprNode r = (RelationalExprNode) node;
+            VectorExpr left = bind(r.left);
+            VectorExpr right = bind(r.right);
+            if (left.type != right.type || left.type == ColumnType.BOOLEAN) {
+                throw new IllegalArgumentException("No se pueden comparar " + left.type + " y " + right.type + " con " + r.operator);
+            }
+            return new CompareExpr(CompareExpr.operator(r.operator), left, right);
+        } else if (node instanceof LogicalExprNode) {
+            LogicalExprNode l = (LogicalExprNode) node;
+            VectorExpr left = expect(bind(l.left), ColumnType.BOOLEAN, l.operator);
+            VectorExpr right = expect(bind(l.right), ColumnType.BOOLEAN, l.operator);
+            return new LogicalExpr(l.operator.equals("AND"), left, right);
+        } else if (node instanceof NotNode) {
+            return new NotExpr(expect(bind(((NotNode) node).operand), ColumnType.BOOLEAN, "NOT"));
+        } else if (node instanceof FunctionNode) {
+            FunctionNode f = (FunctionNode) node;
+            if (Aggregation.function(f) >= 0) {
+                throw new IllegalArgumentException("El agregado " + f.name + " solo puede usarse en el SELECT, y sin otras proyecciones.");
+            }
+            throw new IllegalArgumentException("Función no soportada: " + f.name);
+        }
+        throw new IllegalArgumentException("Expresión no soportada: " + node.getClass().getSimpleName());
+    }
+
+    // Las cadenas del AST conservan las comillas del lexema
+    static String stringValue(StringNode node) {
+        String v = node.value;
+        if (v.length() >= 2 && v.charAt(0) == '"' && v.charAt(v.length() - 1) == '"') {
+            return v.substring(1, v.length() - 1);
+        }
+        return v;
+    }
+
+    // Busca "columna" en todas las tablas o "tabla.columna" / "alias.columna" en una sola
+    ColumnRefExpr resolve(FieldNode node) {
+        // Los nombres son símbolos de SymbolTable.global(): se comparan por identidad
+        Symbol qualifier = node.qualifier;
+        ColumnRefExpr found = null;
+        for (int t = 0; t < tables.size(); t++) {
+            Table table = tables.get(t);
+            if (qualifier != null && qualifier != aliases.get(t) && qualifier != table.symbol()) continue;
+            int c = table.columnIndex(node.column);
+            if (c < 0) continue;
+            if (found != null) {
+                throw new IllegalArgumentException("Columna ambigua: " + node.name());
+            }
+            found = new ColumnRefExpr(t, table.column(c));
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("Columna no encontrada: " + node.name());
+        }
+        return found;
+    }
+
+    private static VectorExpr expect(VectorExpr expr, ColumnType type, String operator) {
+        if (expr.type != type) {
+            throw new IllegalArgumentException("El operador " + operator + " espera " + type + " pero recibió " + expr.type);
+        }
+        return expr;
+    }
+}
@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Huella de la forma de una consulta: texto canónico en el que los literales numéricos,
+// las cadenas y los parámetros se reemplazan por '?', y las tablas del FROM se renombran
+// por posición (t1, t2, ...), junto con su hash FNV-1a de 64 bits.
+//
+//   select x.a, 3 from tab x where x.b = "hola"   ->  SELECT t1.a, ? FROM tab t1 WHERE (t1.b = ?)
+//
+// Un calificador que nombra una tabla del FROM (por su alias o por su nombre) se escribe con
+// el nombre posicional; cualquier otro calificador se conserva tal cual.
+// Una instancia reutiliza su buffer entre llamadas: no es segura entre hilos.
+public final class Fingerprinter implements ASTVisitor<Void> {
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    private final StringBuilder sb = new StringBuilder(256);
+    private final List<FromNode> from = new ArrayList<>();
+
+    // Calcula la huella y deja el texto canónico disponible en text()
+    public long fingerprint(QueryNode query) {
+        sb.setLength(0);
+        from.clear();
+        query.accept(this);
+        return hash(sb);
+    }
+
+    // Texto canónico de la última llamada a fingerprint(), sin copiarlo
+    public CharSequence text() {
+        return sb;
+    }
+
+    public static String canonical(QueryNode query) {
+        Fingerprinter f = new Fingerprinter();
+        f.fingerprint(query);
+        return f.sb.toString();
+    }
+
+    // FNV-1a sobre los dos bytes de cada carácter
+    static long hash(CharSequence texto) {
+        long h = FNV_BASE;
+        for (int i = 0, n = texto.length(); i < n; i++) {
+            char c = texto.charAt(i);
+            h = (h ^ (c & 0xff)) * FNV_PRIMO;
+            h = (h ^ (c >>> 8)) * FNV_PRIMO;
+        }
+        return h;
+    }
+
+    @Override
+    public Void visit(QueryNode node) {
+        // El FROM se registra primero para resolver los calificadores del SELECT y el WHERE
+        from.addAll(node.from);
+        sb.append("SELECT ");
+        if (node.select != null) node.select.accept(this);
+        sb.append(" FROM ");
+        for (int i = 0; i < node.from.size(); i++) {
+            if (i > 0) sb.append(", ");
+            node.from.get(i).accept(this);
+        }
+        if (node.where != null) node.where.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(SelectNode node) {
+        if (node.distinct) sb.append("DISTINCT ");
+        lista(node.fields);
+        return null;
+    }
+
+    @Override
+    public Void visit(FromNode node) {
+        sb.append(node.table.name).append(" t").append(posicion(node) + 1);
+        return null;
+    }
+
+    @Override
+    public Void visit(WhereNode node) {
+        if (node.condition != null) {
+            sb.append(" WHERE ");
+            node.condition.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ArithmeticExprNode node) {
+        return binario(node.left, node.operator, node.right);
+    }
+
+    @Override
+    public Void visit(RelationalExprNode node) {
+        return binario(node.left, node.operator, node.right);
+    }
+
+    @Override
+    public Void visit(LogicalExprNode node) {
+        return binario(node.left, node.operator, node.right);
+    }
+
+    @Override
+    public Void visit(NotNode node) {
+        sb.append("NOT ");
+        node.operand.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(StarNode node) {
+        sb.append('*');
+        return null;
+    }
+
+    @Override
+    public Void visit(FieldNode node) {
+        if (node.qualifier != null) {
+            int t = tabla(node.qualifier);
+            if (t >= 0) sb.append('t').append(t + 1);
+            else sb.append(node.qualifier.name);
+            sb.append('.');
+        }
+        sb.append(node.column.name);
+        return null;
+    }
+
+    @Override
+    public Void visit(NumberNode node) {
+        sb.append('?');
+        return null;
+    }
+
+    @Override
+    public Void visit(StringNode node) {
+        sb.append('?');
+        return null;
+    }
+
+    @Override
+    public Void visit(ParameterNode node) {
+        sb.append('?');
+        return null;
+    }
+
+    @Override
+    public Void visit(BooleanNode node) {
+        sb.append(node.value ? "TRUE" : "FALSE");
+        return null;
+    }
+
+    @Override
+    public Void visit(NullNode node) {
+        sb.append("NULL");
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionNode node) {
+        sb.append(node.name).append('(');
+        lista(node.arguments);
+        sb.append(')');
+        return null;
+    }
+
+    // Los binarios van siempre entre paréntesis para que el texto no dependa de la precedencia
+    private Void binario(ASTNode left, String operator, ASTNode right) {
+        sb.append('(');
+        left.accept(this);
+        sb.append(' ').append(operator).append(' ');
+        right.accept(this);
+        sb.append(')');
+        return null;
+    }
+
+    private void lista(List<ASTNode> nodos) {
+        for (int i = 0; i < nodos.size(); i++) {
+            if (i > 0) sb.append(", ");
+            nodos.get(i).accept(this);
+        }
+    }
+
+    private int posicion(FromNode node) {
+        for (int i = 0; i < from.size(); i++) {
+            if (from.get(i) == node) return i;
+        }
+        return -1;
+    }
+
+    // Primero por alias y después por nombre de tabla, como ExpressionBinder
+    private int tabla(Symbol qualifier) {
+        for (int i = 0; i < from.size(); i++) {
+            FromNode f = from.get(i);
+            if (qualifier == f.alias || qualifier == f.table) return i;
+        }
+        return -1;
+    }
+}
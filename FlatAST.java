@@ -0,0 +1,489 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// AST plano: todos los nodos de una o varias consultas viven en arreglos primitivos paralelos
+// (tipo, operador, referencias y rango de hijos) en lugar de un objeto por nodo.
+// Las cadenas (símbolos y literales) se guardan una sola vez en una tabla de cadenas.
+// El arena se reutiliza con clear() y se puede guardar en un archivo binario y mapearlo de vuelta.
+//
+// Codificación de cada tipo de nodo:
+//   QUERY      hijos [select, where, from...]; select y where pueden ser NINGUNO
+//   SELECT     op = 1 con DISTINCT, hijos = campos;    FROM    ref = tabla, ref2 = alias
+//   WHERE      hijos = [condición] o ninguno
+//   FIELD      ref = columna, ref2 = calificador;   NUMBER / STRING  ref = texto
+//   BOOLEAN    op = 0 / 1;            FUNCTION ref = nombre, hijos = argumentos
+//   ARITHMETIC, LOGICAL, RELATIONAL   op = operador, hijos [izquierdo, derecho]
+//   NOT        hijos [operando];      PARAMETER ref = índice del '?'
+//   STAR, NULL sin datos
+public final class FlatAST {
+    public static final byte QUERY = 0, SELECT = 1, FROM = 2, WHERE = 3, ARITHMETIC = 4, STAR = 5,
+            FIELD = 6, NUMBER = 7, STRING = 8, BOOLEAN = 9, NULL = 10, FUNCTION = 11, LOGICAL = 12,
+            RELATIONAL = 13, NOT = 14, PARAMETER = 15;
+
+    // Hijo o referencia ausente
+    public static final int NINGUNO = -1;
+
+    private static final String[] OPERADORES = {"+", "-", "*", "/", "AND", "OR", "=", "!=", "<", "<=", ">", ">="};
+
+    // Formato binario: cabecera, arreglos de enteros, arreglos de bytes y tabla de cadenas en UTF-8
+    private static final int MAGICO = 0x51415354; // "QAST"
+    private static final int VERSION = 1;
+
+    private byte[] tipos;
+    private byte[] operadores;
+    private int[] refs;
+    private int[] refs2;
+    private int[] hijoInicio;
+    private int[] hijoCuenta;
+    private int nodos;
+
+    private int[] hijos;
+    private int totalHijos;
+
+    private int[] raices;
+    private int consultas;
+
+    private final List<String> cadenas = new ArrayList<>();
+    private final Map<String, Integer> indiceCadenas = new HashMap<>();
+
+    // Pila de hijos pendientes mientras se codifica un nodo (se reutiliza entre consultas)
+    private int[] pendientes = new int[64];
+    private int topePendientes;
+    // Nodos por visitar mientras se codifica; base -1 = todavía no se apilaron sus hijos
+    private ASTNode[] pilaNodos = new ASTNode[64];
+    private int[] pilaBases = new int[64];
+    private int topePila;
+
+    public FlatAST() {
+        this(256);
+    }
+
+    public FlatAST(int capacidadNodos) {
+        int c = Math.max(capacidadNodos, 16);
+        tipos = new byte[c];
+        operadores = new byte[c];
+        refs = new int[c];
+        refs2 = new int[c];
+        hijoInicio = new int[c];
+        hijoCuenta = new int[c];
+        hijos = new int[c];
+        raices = new int[16];
+    }
+
+    // Vacía el arena conservando los arreglos ya reservados
+    public void clear() {
+        nodos = 0;
+        totalHijos = 0;
+        consultas = 0;
+        topePendientes = 0;
+        cadenas.clear();
+        indiceCadenas.clear();
+    }
+
+    public int size() {
+        return nodos;
+    }
+
+    public int queryCount() {
+        return consultas;
+    }
+
+    public int root(int consulta) {
+        if (consulta < 0 || consulta >= consultas) throw new IndexOutOfBoundsException("Consulta inexistente: " + consulta);
+        return raices[consulta];
+    }
+
+    public byte kind(int nodo) {
+        return tipos[nodo];
+    }
+
+    // Texto del operador de un nodo aritmético, lógico o relacional
+    public String operator(int nodo) {
+        return OPERADORES[operadores[nodo]];
+    }
+
+    public int childCount(int nodo) {
+        return hijoCuenta[nodo];
+    }
+
+    public int child(int nodo, int i) {
+        return hijos[hijoInicio[nodo] + i];
+    }
+
+    // Cadena referenciada por el nodo (columna, tabla, nombre de función o literal); null si no hay
+    public String text(int nodo) {
+        return tipos[nodo] == PARAMETER ? null : cadena(refs[nodo]);
+    }
+
+    // Índice de un nodo PARAMETER
+    public int parameterIndex(int nodo) {
+        return refs[nodo];
+    }
+
+    // Calificador de un FIELD o alias de un FROM; null si no hay
+    public String text2(int nodo) {
+        return cadena(refs2[nodo]);
+    }
+
+    private String cadena(int ref) {
+        return ref == NINGUNO ? null : cadenas.get(ref);
+    }
+
+    // Agrega una consulta al arena y devuelve su número
+    public int add(QueryNode query) {
+        int raiz = codificar(query);
+        if (consultas == raices.length) raices = Arrays.copyOf(raices, consultas * 2);
+        raices[consultas] = raiz;
+        return consultas++;
+    }
+
+    // Reconstruye el árbol de objetos de una consulta; los nombres se internan en 'simbolos'
+    public QueryNode toTree(int consulta, SymbolTable simbolos) {
+        return (QueryNode) decodificar(root(consulta), simbolos);
+    }
+
+    public QueryNode toTree(int consulta) {
+        return toTree(consulta, SymbolTable.global());
+    }
+
+    // Los hijos se codifican antes que el padre (postorden) con una pila explícita, como
+    // Parser.expression, así que la profundidad del árbol no depende de la pila de llamadas.
+    // Cada nodo entra a la pila dos veces: sin base (todavía hay que apilar sus hijos) y con la
+    // base de sus hijos en 'pendientes', cuando ya están todos codificados.
+    private int codificar(ASTNode raiz) {
+        topePila = 0;
+        apilar(raiz, -1);
+        while (topePila > 0) {
+            ASTNode node = pilaNodos[--topePila];
+            int base = pilaBases[topePila];
+            pilaNodos[topePila] = null;
+            if (node == null) {
+                pendiente(NINGUNO);
+            } else if (base >= 0) {
+                pendiente(crear(node, base));
+            } else {
+                apilar(node, topePendientes);
+                int primero = topePila;
+                apilarHijos(node);
+                // Se apilaron en orden: se invierten para que el primer hijo salga primero
+                for (int i = primero, j = topePila - 1; i < j; i++, j--) {
+                    ASTNode t = pilaNodos[i];
+                    pilaNodos[i] = pilaNodos[j];
+                    pilaNodos[j] = t;
+                }
+            }
+        }
+        return pendientes[--topePendientes];
+    }
+
+    private void apilarHijos(ASTNode node) {
+        if (node instanceof QueryNode) {
+            QueryNode q = (QueryNode) node;
+            apilar(q.select, -1);
+            apilar(q.where, -1);
+            for (FromNode f : q.from) apilar(f, -1);
+        } else if (node instanceof SelectNode) {
+            for (ASTNode f : ((SelectNode) node).fields) apilar(f, -1);
+        } else if (node instanceof WhereNode) {
+            ASTNode condicion = ((WhereNode) node).condition;
+            if (condicion != null) apilar(condicion, -1);
+        } else if (node instanceof ArithmeticExprNode) {
+            apilar(((ArithmeticExprNode) node).left, -1);
+            apilar(((ArithmeticExprNode) node).right, -1);
+        } else if (node instanceof LogicalExprNode) {
+            apilar(((LogicalExprNode) node).left, -1);
+            apilar(((LogicalExprNode) node).right, -1);
+        } else if (node instanceof RelationalExprNode) {
+            apilar(((RelationalExprNode) node).left, -1);
+            apilar(((RelationalExprNode) node).right, -1);
+        } else if (node instanceof NotNode) {
+            apilar(((NotNode) node).operand, -1);
+        } else if (node instanceof FunctionNode) {
+            for (ASTNode arg : ((FunctionNode) node).arguments) apilar(arg, -1);
+        }
+    }
+
+    private void apilar(ASTNode node, int base) {
+        if (topePila == pilaNodos.length) {
+            pilaNodos = Arrays.copyOf(pilaNodos, topePila * 2);
+            pilaBases = Arrays.copyOf(pilaBases, topePila * 2);
+        }
+        pilaNodos[topePila] = node;
+        pilaBases[topePila++] = base;
+    }
+
+    // Crea el nodo con los hijos ya codificados desde 'base' en 'pendientes'
+    private int crear(ASTNode node, int base) {
+        if (node instanceof QueryNode) {
+            return nodo(QUERY, 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof SelectNode) {
+            return nodo(SELECT, ((SelectNode) node).distinct ? 1 : 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof FromNode) {
+            FromNode f = (FromNode) node;
+            return nodo(FROM, 0, intern(f.table), intern(f.alias), base);
+        } else if (node instanceof WhereNode) {
+            return nodo(WHERE, 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof ArithmeticExprNode) {
+            return nodo(ARITHMETIC, codigoOperador(((ArithmeticExprNode) node).operator), NINGUNO, NINGUNO, base);
+        } else if (node instanceof LogicalExprNode) {
+            return nodo(LOGICAL, codigoOperador(((LogicalExprNode) node).operator), NINGUNO, NINGUNO, base);
+        } else if (node instanceof RelationalExprNode) {
+            return nodo(RELATIONAL, codigoOperador(((RelationalExprNode) node).operator), NINGUNO, NINGUNO, base);
+        } else if (node instanceof NotNode) {
+            return nodo(NOT, 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof StarNode) {
+            return nodo(STAR, 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof FieldNode) {
+            FieldNode f = (FieldNode) node;
+            return nodo(FIELD, 0, intern(f.column), intern(f.qualifier), base);
+        } else if (node instanceof NumberNode) {
+            return nodo(NUMBER, 0, intern(((NumberNode) node).number), NINGUNO, base);
+        } else if (node instanceof StringNode) {
+            return nodo(STRING, 0, intern(((StringNode) node).value), NINGUNO, base);
+        } else if (node instanceof BooleanNode) {
+            return nodo(BOOLEAN, ((BooleanNode) node).value ? 1 : 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof NullNode) {
+            return nodo(NULL, 0, NINGUNO, NINGUNO, base);
+        } else if (node instanceof ParameterNode) {
+            return nodo(PARAMETER, 0, ((ParameterNode) node).index, NINGUNO, base);
+        } else if (node instanceof FunctionNode) {
+            return nodo(FUNCTION, 0, intern(((FunctionNode) node).name), NINGUNO, base);
+        }
+        throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+    }
+
+    private void pendiente(int hijo) {
+        if (topePendientes == pendientes.length) pendientes = Arrays.copyOf(pendientes, topePendientes * 2);
+        pendientes[topePendientes++] = hijo;
+    }
+
+    private int nodo(byte tipo, int operador, int ref, int ref2, int base) {
+        if (nodos == tipos.length) {
+            int c = nodos * 2;
+            tipos = Arrays.copyOf(tipos, c);
+            operadores = Arrays.copyOf(operadores, c);
+            refs = Arrays.copyOf(refs, c);
+            refs2 = Arrays.copyOf(refs2, c);
+            hijoInicio = Arrays.copyOf(hijoInicio, c);
+            hijoCuenta = Arrays.copyOf(hijoCuenta, c);
+        }
+        int cuenta = topePendientes - base;
+        if (totalHijos + cuenta > hijos.length) hijos = Arrays.copyOf(hijos, Math.max(hijos.length * 2, totalHijos + cuenta));
+        System.arraycopy(pendientes, base, hijos, totalHijos, cuenta);
+        topePendientes = base;
+
+        tipos[nodos] = tipo;
+        operadores[nodos] = (byte) operador;
+        refs[nodos] = ref;
+        refs2[nodos] = ref2;
+        hijoInicio[nodos] = totalHijos;
+        hijoCuenta[nodos] = cuenta;
+        totalHijos += cuenta;
+        return nodos++;
+    }
+
+    private static int codigoOperador(String operador) {
+        for (int i = 0; i < OPERADORES.length; i++) {
+            if (OPERADORES[i].equals(operador)) return i;
+        }
+        throw new IllegalArgumentException("Operador no soportado: " + operador);
+    }
+
+    private int intern(Symbol s) {
+        return s == null ? NINGUNO : intern(s.name);
+    }
+
+    private int intern(String s) {
+        if (s == null) return NINGUNO;
+        Integer i = indiceCadenas.get(s);
+        if (i != null) return i;
+        cadenas.add(s);
+        indiceCadenas.put(s, cadenas.size() - 1);
+        return cadenas.size() - 1;
+    }
+
+    // Recorre los nodos con una pila explícita: un nodo se construye cuando sus hijos ya están
+    // al final de 'hechos'. En la pila, -2 - n marca el nodo n con sus hijos ya apilados.
+    private ASTNode decodificar(int raiz, SymbolTable simbolos) {
+        int[] pila = new int[16];
+        int tope = 0;
+        List<ASTNode> hechos = new ArrayList<>();
+        pila[tope++] = raiz;
+        while (tope > 0) {
+            int n = pila[--tope];
+            if (n == NINGUNO) {
+                hechos.add(null);
+            } else if (n >= 0) {
+                int cuenta = hijoCuenta[n];
+                if (tope + 1 + cuenta > pila.length) pila = Arrays.copyOf(pila, Math.max(pila.length * 2, tope + 1 + cuenta));
+                pila[tope++] = -2 - n;
+                for (int i = cuenta - 1; i >= 0; i--) pila[tope++] = child(n, i);
+            } else {
+                n = -2 - n;
+                List<ASTNode> hijosListos = hechos.subList(hechos.size() - hijoCuenta[n], hechos.size());
+                ASTNode nodo = construir(n, hijosListos, simbolos);
+                hijosListos.clear();
+                hechos.add(nodo);
+            }
+        }
+        return hechos.get(0);
+    }
+
+    private ASTNode construir(int n, List<ASTNode> h, SymbolTable simbolos) {
+        switch (tipos[n]) {
+            case QUERY: {
+                List<FromNode> from = new ArrayList<>(h.size() - 2);
+                for (int i = 2; i < h.size(); i++) from.add((FromNode) h.get(i));
+                return new QueryNode(h.get(0), from, h.get(1));
+            }
+            case SELECT:
+                return new SelectNode(new ArrayList<>(h), operadores[n] != 0);
+            case FROM:
+                return new FromNode(simbolo(refs[n], simbolos), simbolo(refs2[n], simbolos));
+            case WHERE:
+                return new WhereNode(h.isEmpty() ? null : h.get(0));
+            case ARITHMETIC:
+                return new ArithmeticExprNode(h.get(0), operator(n), h.get(1));
+            case LOGICAL:
+                return new LogicalExprNode(h.get(0), operator(n), h.get(1));
+            case RELATIONAL:
+                return new RelationalExprNode(h.get(0), operator(n), h.get(1));
+            case NOT:
+                return new NotNode(h.get(0));
+            case STAR:
+                return new StarNode();
+            case FIELD:
+                return new FieldNode(simbolo(refs2[n], simbolos), simbolo(refs[n], simbolos));
+            case NUMBER:
+                return new NumberNode(text(n));
+            case STRING:
+                return new StringNode(text(n));
+            case BOOLEAN:
+                return new BooleanNode(operadores[n] != 0);
+            case NULL:
+                return new NullNode();
+            case PARAMETER:
+                return new ParameterNode(refs[n]);
+            case FUNCTION:
+                return new FunctionNode(text(n), new ArrayList<>(h));
+            default:
+                throw new IllegalStateException("Tipo de nodo desconocido: " + tipos[n]);
+        }
+    }
+
+    private Symbol simbolo(int ref, SymbolTable simbolos) {
+        return ref == NINGUNO ? null : simbolos.intern(cadenas.get(ref));
+    }
+
+    // Guarda el arena completo en 'archivo' (se sobrescribe si existe)
+    public void write(Path archivo) throws IOException {
+        byte[][] utf8 = new byte[cadenas.size()][];
+        long bytesCadenas = 0;
+        for (int i = 0; i < utf8.length; i++) {
+            utf8[i] = cadenas.get(i).getBytes(StandardCharsets.UTF_8);
+            bytesCadenas += 4 + utf8[i].length;
+        }
+        long total = 6 * 4L + 4L * nodos * 4 + 4L * totalHijos + 4L * consultas + 2L * nodos + bytesCadenas;
+        if (total > Integer.MAX_VALUE) throw new IOException("El AST no cabe en un solo archivo mapeado: " + total + " bytes");
+
+        ByteBuffer b = ByteBuffer.allocate((int) total);
+        b.putInt(MAGICO).putInt(VERSION).putInt(nodos).putInt(totalHijos).putInt(consultas).putInt(cadenas.size());
+        // Enteros primero para que queden alineados a 4 bytes
+        b.asIntBuffer().put(refs, 0, nodos);
+        b.position(b.position() + 4 * nodos);
+        b.asIntBuffer().put(refs2, 0, nodos);
+        b.position(b.position() + 4 * nodos);
+        b.asIntBuffer().put(hijoInicio, 0, nodos);
+        b.position(b.position() + 4 * nodos);
+        b.asIntBuffer().put(hijoCuenta, 0, nodos);
+        b.position(b.position() + 4 * nodos);
+        b.asIntBuffer().put(hijos, 0, totalHijos);
+        b.position(b.position() + 4 * totalHijos);
+        b.asIntBuffer().put(raices, 0, consultas);
+        b.position(b.position() + 4 * consultas);
+        b.put(tipos, 0, nodos);
+        b.put(operadores, 0, nodos);
+        for (byte[] s : utf8) {
+            b.putInt(s.length).put(s);
+        }
+        b.flip();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (b.hasRemaining()) canal.write(b);
+        }
+    }
+
+    // Mapea un archivo escrito con write(); los arreglos se copian en bloque desde el mapeo,
+    // de modo que el arena resultante se puede seguir ampliando con add()
+    public static FlatAST map(Path archivo) throws IOException {
+        MappedByteBuffer b;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            b = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        if (b.remaining() < 24 || b.getInt() != MAGICO) throw new IOException("No es un archivo de AST: " + archivo);
+        int version = b.getInt();
+        if (version != VERSION) throw new IOException("Versión de AST no soportada: " + version);
+        int nodos = b.getInt(), totalHijos = b.getInt(), consultas = b.getInt(), numCadenas = b.getInt();
+        // Las cuentas de la cabecera tienen que caber en el archivo (cada cadena ocupa al menos su largo)
+        long necesarios = 4L * nodos * 4 + 4L * totalHijos + 4L * consultas + 2L * nodos + 4L * numCadenas;
+        if (nodos < 0 || totalHijos < 0 || consultas < 0 || numCadenas < 0 || necesarios > b.remaining()) {
+            throw new IOException("Archivo de AST truncado o dañado: " + archivo);
+        }
+
+        FlatAST ast = new FlatAST(nodos);
+        ast.hijos = new int[Math.max(totalHijos, 16)];
+        ast.raices = new int[Math.max(consultas, 16)];
+        leer(b, ast.refs, nodos);
+        leer(b, ast.refs2, nodos);
+        leer(b, ast.hijoInicio, nodos);
+        leer(b, ast.hijoCuenta, nodos);
+        leer(b, ast.hijos, totalHijos);
+        leer(b, ast.raices, consultas);
+        b.get(ast.tipos, 0, nodos);
+        b.get(ast.operadores, 0, nodos);
+        for (int i = 0; i < numCadenas; i++) {
+            int largo = b.remaining() < 4 ? -1 : b.getInt();
+            if (largo < 0 || largo > b.remaining()) throw new IOException("Archivo de AST truncado o dañado: " + archivo);
+            byte[] s = new byte[largo];
+            b.get(s);
+            ast.intern(new String(s, StandardCharsets.UTF_8));
+        }
+        ast.validar(nodos, totalHijos, consultas, archivo);
+        ast.nodos = nodos;
+        ast.totalHijos = totalHijos;
+        ast.consultas = consultas;
+        return ast;
+    }
+
+    // Los hijos de un nodo son nodos anteriores y sus rangos están dentro de 'hijos'; así
+    // decodificar un archivo dañado no puede leer fuera de los arreglos ni quedar en un ciclo
+    private void validar(int nodos, int totalHijos, int consultas, Path archivo) throws IOException {
+        for (int n = 0; n < nodos; n++) {
+            if (hijoCuenta[n] < 0 || hijoInicio[n] < 0 || (long) hijoInicio[n] + hijoCuenta[n] > totalHijos) {
+                throw new IOException("Archivo de AST dañado: hijos fuera de rango en el nodo " + n + ": " + archivo);
+            }
+            for (int i = 0; i < hijoCuenta[n]; i++) {
+                int hijo = hijos[hijoInicio[n] + i];
+                if (hijo < NINGUNO || hijo >= n) throw new IOException("Archivo de AST dañado: hijo inválido en el nodo " + n + ": " + archivo);
+            }
+        }
+        for (int c = 0; c < consultas; c++) {
+            if (raices[c] < 0 || raices[c] >= nodos) throw new IOException("Archivo de AST dañado: raíz inválida: " + archivo);
+        }
+    }
+
+    private static void leer(ByteBuffer b, int[] destino, int n) {
+        b.asIntBuffer().get(destino, 0, n);
+        b.position(b.position() + 4 * n);
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.Arrays;
+
+// Índice hash de una columna para búsquedas por igualdad (columna = literal).
+// Reutiliza JoinHashTable sobre todos los valores de la columna: cada clave distinta apunta a su
+// primera fila y las demás quedan encadenadas en orden creciente, así que una búsqueda devuelve
+// las filas en el mismo orden que un recorrido completo sin tener que ordenarlas.
+final class HashIndex {
+    private final JoinHashTable tabla;
+
+    private HashIndex(JoinHashTable tabla) {
+        this.tabla = tabla;
+    }
+
+    static HashIndex build(Column column) {
+        int n = column.size();
+        if (column.type() == ColumnType.NUMBER) {
+            double[] valores = new double[n];
+            for (int fila = 0; fila < n; fila++) valores[fila] = column.getNumber(fila);
+            return new HashIndex(JoinHashTable.numbers(valores, n));
+        }
+        String[] valores = new String[n];
+        for (int fila = 0; fila < n; fila++) valores[fila] = column.getString(fila);
+        return new HashIndex(JoinHashTable.strings(valores, n));
+    }
+
+    // Filas con ese valor, en orden creciente (NaN no coincide con nada)
+    int[] rows(double valor) {
+        return recorrer(tabla.first(valor));
+    }
+
+    int[] rows(String valor) {
+        return recorrer(tabla.first(valor));
+    }
+
+    private int[] recorrer(int fila) {
+        int[] filas = new int[8];
+        int n = 0;
+        for (; fila != JoinHashTable.FIN; fila = tabla.next(fila)) {
+            if (n == filas.length) filas = Arrays.copyOf(filas, n * 2);
+            filas[n++] = fila;
+        }
+        return Arrays.copyOf(filas, n);
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Documento SQL editable (REPL o editor) que se vuelve a escanear y analizar de forma incremental.
+// Ante una edición solo se re-escanea desde el último punto seguro antes del cambio (el final de un
+// token, que nunca cae dentro de una cadena o un comentario) hasta que el nuevo flujo de tokens
+// vuelve a coincidir con el anterior, y solo se vuelven a analizar las sentencias afectadas.
+// Copiar el texto y desplazar las posiciones de los tokens siguientes sigue siendo lineal, pero
+// son copias de arreglos: el trabajo de escaneo y análisis depende del tamaño de la edición.
+public class IncrementalDocument {
+    // Una sentencia: tokens [inicio, fin) terminados en ';' (o en EOF la última)
+    public static final class Sentencia {
+        int inicio;
+        int fin;
+        final QueryNode ast;
+        final List<String> errores;
+
+        Sentencia(int inicio, int fin, QueryNode ast, List<String> errores) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.ast = ast;
+            this.errores = errores;
+        }
+
+        public QueryNode ast() {
+            return ast;
+        }
+
+        public List<String> errores() {
+            return errores;
+        }
+    }
+
+    private String text;
+    private TokenBuffer tokens;
+    private List<Sentencia> sentencias;
+    private int ultimosTokensEscaneados;
+    private int ultimasSentenciasAnalizadas;
+
+    public IncrementalDocument(String text) {
+        this.text = text;
+        Scanner scanner = new Scanner(text);
+        scanner.setReportarErrores(false);
+        this.tokens = scanner.scanCompact();
+        this.sentencias = new ArrayList<>();
+        analizar(0, tokens.size() - 1, sentencias);
+        this.ultimosTokensEscaneados = tokens.size();
+        this.ultimasSentenciasAnalizadas = sentencias.size();
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public TokenBuffer tokens() {
+        return tokens;
+    }
+
+    public List<Sentencia> sentencias() {
+        return Collections.unmodifiableList(sentencias);
+    }
+
+    // Tokens escaneados y sentencias analizadas en la última edición
+    public int ultimosTokensEscaneados() {
+        return ultimosTokensEscaneados;
+    }
+
+    public int ultimasSentenciasAnalizadas() {
+        return ultimasSentenciasAnalizadas;
+    }
+
+    // Reemplaza 'removed' caracteres a partir de 'offset' por 'inserted'
+    public void edit(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException("Edición fuera del documento: " + offset + "+" + removed);
+        }
+        String nuevoTexto = text.substring(0, offset) + inserted + text.substring(offset + removed);
+        int delta = inserted.length() - removed;
+        int finEdicion = offset + inserted.length();
+        int eof = tokens.size() - 1;
+
+        // Punto de reinicio: fin del último token que terminó antes del cambio. El Scanner puede
+        // mirar hasta dos caracteres después de un token (1.5, --, /*), de ahí el margen.
+        int r = eof - 1;
+        while (r >= 0 && tokens.fin(r) + 1 >= offset) r--;
+        int reinicio = r >= 0 ? tokens.fin(r) : 0;
+        int lineaReinicio = r >= 0 ? tokens.linea(r) : 1;
+
+        // Re-escaneo hasta que un token nuevo empiece donde empezaba uno viejo (ya desplazado)
+        TokenBuffer nuevos = new TokenBuffer(nuevoTexto);
+        Scanner scanner = new Scanner(nuevoTexto, reinicio, lineaReinicio);
+        scanner.setReportarErrores(false);
+        int j = -1;
+        int deltaLinea = 0;
+        while (scanner.scanNextCompact(nuevos)) {
+            int k = nuevos.size() - 1;
+            int inicio = nuevos.inicio(k);
+            if (inicio < finEdicion) continue;
+            int viejo = tokens.indexOfStart(inicio - delta, r + 1, eof);
+            if (viejo >= 0) {
+                j = viejo;
+                deltaLinea = nuevos.linea(k) - tokens.linea(j);
+                nuevos.removeLast();
+                break;
+            }
+        }
+        ultimosTokensEscaneados = nuevos.size() + (j >= 0 ? 1 : 0);
+
+        TokenBuffer resultado = new TokenBuffer(nuevoTexto, tokens.size() + nuevos.size());
+        resultado.addRange(tokens, 0, r + 1, 0, 0);
+        resultado.addRange(nuevos, 0, nuevos.size(), 0, 0);
+        int finCambioNuevo = resultado.size();
+        if (j >= 0) {
+            resultado.addRange(tokens, j, tokens.size(), delta, deltaLinea);
+        } else {
+            j = eof;
+            resultado.add(TipoToken.EOF, nuevoTexto.length(), nuevoTexto.length(), scanner.currentLine());
+        }
+
+        actualizarSentencias(resultado, r + 1, j, finCambioNuevo);
+        text = nuevoTexto;
+        tokens = resultado;
+    }
+
+    // Los tokens viejos [cambio, finViejo) fueron reemplazados por los nuevos [cambio, finNuevo)
+    private void actualizarSentencias(TokenBuffer nuevos, int cambio, int finViejo, int finNuevo) {
+        int desplazamiento = finNuevo - finViejo;
+        int primera = 0;
+        // Se conservan las sentencias cerradas con ';' antes del cambio; la última sin ';' sigue abierta
+        while (primera < sentencias.size() && cerradaAntes(sentencias.get(primera), cambio)) primera++;
+        int inicio = primera < sentencias.size() ? sentencias.get(primera).inicio : (primera > 0 ? sentencias.get(primera - 1).fin : 0);
+
+        TokenBuffer anterior = tokens;
+        tokens = nuevos;
+        List<Sentencia> reanalizadas = new ArrayList<>();
+        int eof = tokens.size() - 1;
+        int ultima = primera; // Primera sentencia vieja que todavía puede conservarse
+        boolean sincronizado = false;
+        for (int i = inicio; i < eof && !sincronizado; i++) {
+            if (tokens.tipo(i) != TipoToken.SEMICOLON) continue;
+            reanalizadas.add(analizarSentencia(inicio, i + 1));
+            inicio = i + 1;
+            if (inicio < finNuevo) continue;
+            // Pasado el cambio, se para en cuanto el límite coincide con el inicio de una sentencia vieja
+            while (ultima < sentencias.size() && sentencias.get(ultima).inicio + desplazamiento < inicio) ultima++;
+            sincronizado = ultima < sentencias.size() && sentencias.get(ultima).inicio + desplazamiento == inicio;
+        }
+        if (!sincronizado) {
+            if (inicio < eof) reanalizadas.add(analizarSentencia(inicio, eof));
+            ultima = sentencias.size();
+        }
+        tokens = anterior;
+        ultimasSentenciasAnalizadas = reanalizadas.size();
+
+        List<Sentencia> resultado = new ArrayList<>(primera + reanalizadas.size() + sentencias.size() - ultima);
+        resultado.addAll(sentencias.subList(0, primera));
+        resultado.addAll(reanalizadas);
+        for (int i = ultima; i < sentencias.size(); i++) {
+            Sentencia s = sentencias.get(i);
+            s.inicio += desplazamiento;
+            s.fin += desplazamiento;
+            resultado.add(s);
+        }
+        sentencias = resultado;
+    }
+
+    private boolean cerradaAntes(Sentencia s, int cambio) {
+        return s.fin < cambio || (s.fin == cambio && tokens.tipo(s.fin - 1) == TipoToken.SEMICOLON);
+    }
+
+    // Analiza todas las sentencias de [desde, eof)
+    private void analizar(int desde, int eof, List<Sentencia> destino) {
+        int inicio = desde;
+        for (int i = desde; i < eof; i++) {
+            if (tokens.tipo(i) != TipoToken.SEMICOLON) continue;
+            destino.add(analizarSentencia(inicio, i + 1));
+            inicio = i + 1;
+        }
+        if (inicio < eof) destino.add(analizarSentencia(inicio, eof));
+    }
+
+    private Sentencia analizarSentencia(int inicio, int fin) {
+        Parser parser = new Parser(tokens.cursor(inicio, fin));
+        parser.setReportarErrores(false);
+        QueryNode ast = parser.consulta();
+        return new Sentencia(inicio, fin, ast, parser.getErrores());
+    }
+}
@@ -0,0 +1,91 @@
+// Tabla hash del lado de construcción de un hash join. Guarda posiciones (0..n-1) del lado
+// construido agrupadas por clave: cada clave distinta ocupa una ranura (direccionamiento
+// abierto) que apunta a la primera posición, y las demás se encadenan en 'siguiente'.
+// Las claves numéricas se comparan por sus bits, con -0.0 igual a 0.0; NaN nunca coincide,
+// igual que '=' en CompareExpr.
+final class JoinHashTable {
+    static final int FIN = -1;
+
+    private final double[] numeros;
+    private final String[] cadenas;
+    private final int[] ranuras;   // posición + 1 de la primera fila de cada clave; 0 = libre
+    private final int[] siguiente;
+    private final int mascara;
+
+    private JoinHashTable(double[] numeros, String[] cadenas, int n) {
+        this.numeros = numeros;
+        this.cadenas = cadenas;
+        int capacidad = Integer.highestOneBit(Math.max(4, n) * 2 - 1) << 1;
+        this.ranuras = new int[capacidad];
+        this.siguiente = new int[n];
+        this.mascara = capacidad - 1;
+        // Se inserta de atrás hacia adelante para que cada cadena quede en el orden original
+        for (int pos = n - 1; pos >= 0; pos--) insertar(pos);
+    }
+
+    static JoinHashTable numbers(double[] claves, int n) {
+        return new JoinHashTable(claves, null, n);
+    }
+
+    static JoinHashTable strings(String[] claves, int n) {
+        return new JoinHashTable(null, claves, n);
+    }
+
+    // Primera posición con esa clave, o FIN
+    int first(double clave) {
+        if (clave != clave) return FIN;
+        long bits = bits(clave);
+        for (int r = mezclar(bits) & mascara; ; r = (r + 1) & mascara) {
+            int pos = ranuras[r] - 1;
+            if (pos < 0) return FIN;
+            if (bits(numeros[pos]) == bits) return pos;
+        }
+    }
+
+    int first(String clave) {
+        if (clave == null) return FIN;
+        for (int r = mezclar(clave.hashCode()) & mascara; ; r = (r + 1) & mascara) {
+            int pos = ranuras[r] - 1;
+            if (pos < 0) return FIN;
+            if (cadenas[pos].equals(clave)) return pos;
+        }
+    }
+
+    // Siguiente posición con la misma clave, o FIN
+    int next(int pos) {
+        return siguiente[pos];
+    }
+
+    private void insertar(int pos) {
+        int r;
+        if (numeros != null) {
+            double v = numeros[pos];
+            if (v != v) {
+                siguiente[pos] = FIN; // NaN no se inserta
+                return;
+            }
+            long bits = bits(v);
+            for (r = mezclar(bits) & mascara; ranuras[r] != 0 && bits(numeros[ranuras[r] - 1]) != bits; r = (r + 1) & mascara) {
+            }
+        } else {
+            String v = cadenas[pos];
+            if (v == null) {
+                siguiente[pos] = FIN;
+                return;
+            }
+            for (r = mezclar(v.hashCode()) & mascara; ranuras[r] != 0 && !cadenas[ranuras[r] - 1].equals(v); r = (r + 1) & mascara) {
+            }
+        }
+        siguiente[pos] = ranuras[r] - 1;
+        ranuras[r] = pos + 1;
+    }
+
+    private static long bits(double v) {
+        return Double.doubleToRawLongBits(v == 0 ? 0.0 : v);
+    }
+
+    private static int mezclar(long h) {
+        h *= 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+// Planificador de joins para FROM con varias tablas. Separa la conjunción del WHERE en sus
+// términos y toma como condiciones de join las igualdades entre campos de dos tablas distintas
+// (x.id = y.a_id). Después une las tablas con hash joins, de a dos partes por vez, empezando por
+// el par más chico; en cada join construye la tabla hash con el lado de menor cardinalidad y
+// recorre el otro. Las tablas sin ninguna igualdad que las una quedan como producto cartesiano.
+//
+// Antes de unirlas, AccessPath reduce cada tabla a sus filas candidatas usando los índices de las
+// comparaciones con literales (x.id = 42, x.precio < 20), también con una sola tabla.
+// Los términos que no se usaron como clave de un join ni se resolvieron con un índice forman el
+// filtro residual, que se evalúa por lotes como cualquier WHERE.
+final class JoinPlanner {
+    private final List<Table> tables;
+    private final ExpressionBinder binder;
+    private final List<ASTNode> residual = new ArrayList<>();
+    private final List<Igualdad> igualdades = new ArrayList<>();
+    private boolean planificado;
+
+    // Igualdad entre una columna de la tabla 'a' y una de la tabla 'b'
+    private static final class Igualdad {
+        final ASTNode nodo;
+        final ColumnRefExpr a;
+        final ColumnRefExpr b;
+
+        Igualdad(ASTNode nodo, ColumnRefExpr a, ColumnRefExpr b) {
+            this.nodo = nodo;
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    // Grupo de tablas ya unidas: filas[k] son las filas de fuentes[k] en cada posición
+    // (null en una tabla suelta, donde la posición es la fila)
+    private static final class Parte {
+        final int[] fuentes;
+        final int[][] filas;
+        final int size;
+
+        Parte(int[] fuentes, int[][] filas, int size) {
+            this.fuentes = fuentes;
+            this.filas = filas;
+            this.size = size;
+        }
+
+        int indice(int fuente) {
+            for (int k = 0; k < fuentes.length; k++) {
+                if (fuentes[k] == fuente) return k;
+            }
+            return -1;
+        }
+
+        int fila(int k, int pos) {
+            return filas == null ? pos : filas[k][pos];
+        }
+    }
+
+    JoinPlanner(List<Table> tables, ExpressionBinder binder, ASTNode condition) {
+        this.tables = tables;
+        this.binder = binder;
+        for (ASTNode termino : conjuncion(condition)) {
+            Igualdad igualdad = tables.size() > 1 ? igualdad(termino, binder) : null;
+            if (igualdad != null) igualdades.add(igualdad);
+            else residual.add(termino);
+        }
+    }
+
+    // Filtro que queda después de los joins (null si no queda ninguno)
+    ASTNode residual() {
+        if (!planificado) {
+            throw new IllegalStateException("residual() se debe leer después de relation().");
+        }
+        ASTNode resultado = null;
+        for (ASTNode termino : residual) {
+            resultado = resultado == null ? termino : new LogicalExprNode(resultado, "AND", termino);
+        }
+        return resultado;
+    }
+
+    // Elige los caminos de acceso, ejecuta los joins y devuelve las posiciones a recorrer.
+    // Los términos resueltos con índices salen del residual y las igualdades que no se pueden
+    // usar como clave (porque sus dos tablas ya quedaron unidas por otra) pasan a él, así que
+    // residual() debe leerse después de llamar a este método (antes lanza IllegalStateException).
+    Relation relation() {
+        planificado = true;
+        int[][] candidatos = AccessPath.select(tables, binder, residual);
+        boolean indices = false;
+        for (int[] filas : candidatos) indices |= filas != null;
+        if (igualdades.isEmpty() && !indices) return QueryEngine.relation(tables);
+
+        List<Parte> partes = new ArrayList<>();
+        for (int t = 0; t < tables.size(); t++) {
+            int[] filas = candidatos[t];
+            partes.add(filas == null
+                    ? new Parte(new int[] {t}, null, tables.get(t).rowCount())
+                    : new Parte(new int[] {t}, new int[][] {filas}, filas.length));
+        }
+        List<Igualdad> pendientes = new ArrayList<>(igualdades);
+        while (!pendientes.isEmpty()) {
+            // El par de partes más chico primero: sus resultados intermedios suelen ser menores
+            Igualdad elegida = null;
+            long mejor = Long.MAX_VALUE;
+            for (Igualdad ig : pendientes) {
+                Parte pa = parteDe(partes, ig.a.source);
+                Parte pb = parteDe(partes, ig.b.source);
+                if (pa == pb) continue;
+                long costo = (long) pa.size + pb.size;
+                if (costo < mejor) {
+                    mejor = costo;
+                    elegida = ig;
+                }
+            }
+            if (elegida == null) break;
+            pendientes.remove(elegida);
+            Parte pa = parteDe(partes, elegida.a.source);
+            Parte pb = parteDe(partes, elegida.b.source);
+            partes.remove(pa);
+            partes.remove(pb);
+            partes.add(hashJoin(pa, elegida.a, pb, elegida.b));
+        }
+        // Igualdades dentro de una misma parte: se verifican como filtro
+        for (Igualdad ig : pendientes) residual.add(ig.nodo);
+
+        partes.sort((x, y) -> Integer.compare(x.fuentes[0], y.fuentes[0]));
+        int[][] fuentes = new int[partes.size()][];
+        int[][][] filas = new int[partes.size()][][];
+        int[] sizes = new int[partes.size()];
+        for (int p = 0; p < partes.size(); p++) {
+            fuentes[p] = partes.get(p).fuentes;
+            filas[p] = partes.get(p).filas;
+            sizes[p] = partes.get(p).size;
+        }
+        return new JoinedRelation(fuentes, filas, sizes);
+    }
+
+    private static Parte parteDe(List<Parte> partes, int fuente) {
+        for (Parte p : partes) {
+            if (p.indice(fuente) >= 0) return p;
+        }
+        throw new IllegalStateException("Tabla sin parte: " + fuente);
+    }
+
+    // Une dos partes por la igualdad a = b construyendo la tabla hash con la parte más chica
+    private Parte hashJoin(Parte pa, ColumnRefExpr a, Parte pb, ColumnRefExpr b) {
+        boolean construirA = pa.size <= pb.size;
+        Parte construida = construirA ? pa : pb;
+        Parte recorrida = construirA ? pb : pa;
+        ColumnRefExpr claveConstruida = construirA ? a : b;
+        ColumnRefExpr claveRecorrida = construirA ? b : a;
+        boolean numero = claveConstruida.type == ColumnType.NUMBER;
+        int kc = construida.indice(claveConstruida.source);
+        int kr = recorrida.indice(claveRecorrida.source);
+
+        // Claves del lado construido, leídas por lotes
+        double[] numeros = numero ? new double[construida.size] : null;
+        String[] cadenas = numero ? null : new String[construida.size];
+        int[] filas = new int[Batch.SIZE];
+        double[] loteNumeros = new double[Batch.SIZE];
+        String[] loteCadenas = new String[Batch.SIZE];
+        for (int desde = 0; desde < construida.size; desde += Batch.SIZE) {
+            int n = Math.min(Batch.SIZE, construida.size - desde);
+            for (int i = 0; i < n; i++) filas[i] = construida.fila(kc, desde + i);
+            if (numero) {
+                claveConstruida.column.gatherNumbers(filas, n, loteNumeros);
+                System.arraycopy(loteNumeros, 0, numeros, desde, n);
+            } else {
+                claveConstruida.column.gatherStrings(filas, n, loteCadenas);
+                System.arraycopy(loteCadenas, 0, cadenas, desde, n);
+            }
+        }
+        JoinHashTable tabla = numero ? JoinHashTable.numbers(numeros, construida.size) : JoinHashTable.strings(cadenas, construida.size);
+
+        // Pares (posición construida, posición recorrida) en el orden del lado recorrido
+        int[] posConstruida = new int[Math.max(16, Math.min(construida.size, recorrida.size))];
+        int[] posRecorrida = new int[posConstruida.length];
+        int total = 0;
+        for (int desde = 0; desde < recorrida.size; desde += Batch.SIZE) {
+            int n = Math.min(Batch.SIZE, recorrida.size - desde);
+            for (int i = 0; i < n; i++) filas[i] = recorrida.fila(kr, desde + i);
+            if (numero) claveRecorrida.column.gatherNumbers(filas, n, loteNumeros);
+            else claveRecorrida.column.gatherStrings(filas, n, loteCadenas);
+            for (int i = 0; i < n; i++) {
+                int pos = numero ? tabla.first(loteNumeros[i]) : tabla.first(loteCadenas[i]);
+                for (; pos != JoinHashTable.FIN; pos = tabla.next(pos)) {
+                    if (total == posConstruida.length) {
+                        if (total == Integer.MAX_VALUE - 8) {
+                            throw new IllegalArgumentException("El resultado del join es demasiado grande.");
+                        }
+                        int capacidad = (int) Math.min(Integer.MAX_VALUE - 8, total * 2L);
+                        posConstruida = Arrays.copyOf(posConstruida, capacidad);
+                        posRecorrida = Arrays.copyOf(posRecorrida, capacidad);
+                    }
+                    posConstruida[total] = pos;
+                    posRecorrida[total] = desde + i;
+                    total++;
+                }
+            }
+        }
+
+        // Materializa las filas de todas las tablas de las dos partes
+        int[] fuentes = new int[pa.fuentes.length + pb.fuentes.length];
+        int[][] resultado = new int[fuentes.length][];
+        int k = 0;
+        for (Parte parte : new Parte[] {pa, pb}) {
+            int[] posiciones = parte == construida ? posConstruida : posRecorrida;
+            for (int j = 0; j < parte.fuentes.length; j++, k++) {
+                fuentes[k] = parte.fuentes[j];
+                int[] destino = new int[total];
+                for (int i = 0; i < total; i++) destino[i] = parte.fila(j, posiciones[i]);
+                resultado[k] = destino;
+            }
+        }
+        return new Parte(fuentes, resultado, total);
+    }
+
+    // x.a = y.b con columnas del mismo tipo (número o texto) de dos tablas distintas
+    private static Igualdad igualdad(ASTNode termino, ExpressionBinder binder) {
+        if (!(termino instanceof RelationalExprNode)) return null;
+        RelationalExprNode r = (RelationalExprNode) termino;
+        if (!r.operator.equals("=") || !(r.left instanceof FieldNode) || !(r.right instanceof FieldNode)) return null;
+        ColumnRefExpr a = binder.resolve((FieldNode) r.left);
+        ColumnRefExpr b = binder.resolve((FieldNode) r.right);
+        if (a.source == b.source || a.type != b.type) return null;
+        return new Igualdad(termino, a, b);
+    }
+
+    // Términos de una cadena de AND (en orden, sin recursión)
+    private static List<ASTNode> conjuncion(ASTNode condition) {
+        List<ASTNode> terminos = new ArrayList<>();
+        if (condition == null) return terminos;
+        Deque<ASTNode> pila = new ArrayDeque<>();
+        pila.push(condition);
+        while (!pila.isEmpty()) {
+            ASTNode n = pila.pop();
+            if (n instanceof LogicalExprNode && ((LogicalExprNode) n).operator.equals("AND")) {
+                pila.push(((LogicalExprNode) n).right);
+                pila.push(((LogicalExprNode) n).left);
+            } else {
+                terminos.add(n);
+            }
+        }
+        return terminos;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma logarítmico sin candados para valores no negativos (nanosegundos, bytes).
+// Cada potencia de dos se divide en 16 cubetas, así que un percentil tiene a lo sumo ~6% de error
+// relativo, con memoria fija (976 contadores) sin importar cuántos valores se registren.
+// record() solo hace incrementos atómicos; varios hilos pueden registrar y leer a la vez.
+public final class LatencyHistogram {
+    private static final int BITS = 4;
+    private static final int SUB = 1 << BITS;
+    private static final int CUBETAS = (64 - BITS + 1) * SUB;
+
+    private final String nombre;
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public LatencyHistogram(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public void record(long valor) {
+        if (valor < 0) valor = 0;
+        cuentas.incrementAndGet(cubeta(valor));
+        total.increment();
+        suma.add(valor);
+        long m = maximo.get();
+        while (valor > m && !maximo.compareAndSet(m, valor)) m = maximo.get();
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long max() {
+        return maximo.get();
+    }
+
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    // Valor aproximado del percentil p (0 < p <= 1); 0 si no hay registros
+    public long percentile(double p) {
+        long n = 0;
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas.get(i);
+            n += copia[i];
+        }
+        if (n == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(p * n));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) return Math.min(valorMedio(i), maximo.get());
+        }
+        return maximo.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < CUBETAS; i++) cuentas.set(i, 0);
+        total.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+
+    // Los valores menores que SUB tienen cubeta propia; los demás se agrupan por exponente
+    // y por los BITS bits que siguen al más significativo
+    static int cubeta(long valor) {
+        if (valor < SUB) return (int) valor;
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (exponente - BITS)) & (SUB - 1);
+        return (exponente - BITS + 1) * SUB + sub;
+    }
+
+    static long valorMedio(int cubeta) {
+        if (cubeta < SUB) return cubeta;
+        int exponente = cubeta / SUB + BITS - 1;
+        long inferior = (long) (SUB + cubeta % SUB) << (exponente - BITS);
+        return inferior + (1L << (exponente - BITS)) / 2;
+    }
+}
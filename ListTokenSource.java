@@ -0,0 +1,25 @@
+import java.util.List;
+
+// Adaptador para recorrer una lista de tokens ya construida (por ejemplo, la de scanTokens())
+public class ListTokenSource implements TokenSource {
+    private final List<Token> tokens;
+    private int index = 0;
+
+    public ListTokenSource(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public Token nextToken() {
+        Token token = peekToken();
+        if (index < tokens.size()) index++;
+        return token;
+    }
+
+    @Override
+    public Token peekToken() {
+        if (index < tokens.size()) return tokens.get(index);
+        int linea = tokens.isEmpty() ? 0 : tokens.get(tokens.size() - 1).linea;
+        return new Token(TipoToken.EOF, "", linea);
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Cliente de carga para QueryServer.
+// Uso: java LoadGenerator [puerto] [conexiones] [segundos]
+// Abre todas las conexiones desde un solo hilo con un Selector; cada conexión envía una
+// consulta, espera la respuesta completa y envía la siguiente. Al terminar informa
+// peticiones por segundo y los percentiles de latencia (p50, p99, p99.9, máximo).
+public class LoadGenerator {
+    private static final String[] CONSULTAS = {
+        "select a, b from t where a > 1 and (b = \"x\" or c < 3);",
+        "select x.id, y.nombre from clientes x, pedidos y where x.id = y.cliente;",
+        "select * from t;",
+        "select f(a, b) from t where not a = b + 2;",
+        "select from t;", // Error de sintaxis: también se mide
+    };
+
+    public static void main(String[] args) throws IOException {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 5433;
+        int conexiones = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        ejecutar(new InetSocketAddress("127.0.0.1", puerto), conexiones, segundos * 1_000_000_000L);
+    }
+
+    static void ejecutar(InetSocketAddress destino, int conexiones, long duracionNs) throws IOException {
+        ByteBuffer[] peticiones = new ByteBuffer[CONSULTAS.length];
+        for (int i = 0; i < CONSULTAS.length; i++) {
+            peticiones[i] = ByteBuffer.wrap((CONSULTAS[i] + "\n").getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        }
+        Latencias latencias = new Latencias();
+        long errores = 0;
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < conexiones; i++) {
+                SocketChannel canal = SocketChannel.open(destino); // Conexión bloqueante; después se pasa a no bloqueante
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                canal.configureBlocking(false);
+                Conexion c = new Conexion(canal, i);
+                c.enviar(peticiones[c.siguiente++ % peticiones.length].duplicate());
+                canal.register(selector, SelectionKey.OP_WRITE, c);
+            }
+
+            long inicio = System.nanoTime();
+            long fin = inicio + duracionNs;
+            while (System.nanoTime() < fin) {
+                selector.select(100);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Conexion c = (Conexion) key.attachment();
+                    if (key.isWritable()) {
+                        c.canal.write(c.salida);
+                        if (!c.salida.hasRemaining()) key.interestOps(SelectionKey.OP_READ);
+                    } else if (key.isReadable()) {
+                        if (c.canal.read(c.entrada) < 0) {
+                            throw new IOException("El servidor cerró la conexión " + c.numero);
+                        }
+                        if (!c.respuestaCompleta()) continue;
+                        latencias.agregar(System.nanoTime() - c.enviada);
+                        if (c.respuestaEsError()) errores++;
+                        c.enviar(peticiones[c.siguiente++ % peticiones.length].duplicate());
+                        c.canal.write(c.salida);
+                        key.interestOps(c.salida.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+            double transcurrido = (System.nanoTime() - inicio) / 1e9;
+            for (SelectionKey key : selector.keys()) key.channel().close();
+
+            System.out.printf("conexiones=%d  peticiones=%d  errores=%d  %.1f peticiones/s%n",
+                    conexiones, latencias.n, errores, latencias.n / transcurrido);
+            System.out.printf("latencia µs: p50=%.1f  p99=%.1f  p99.9=%.1f  max=%.1f%n",
+                    latencias.percentil(0.50) / 1e3, latencias.percentil(0.99) / 1e3,
+                    latencias.percentil(0.999) / 1e3, latencias.percentil(1.0) / 1e3);
+        }
+    }
+
+    private static final class Conexion {
+        final SocketChannel canal;
+        final int numero;
+        int siguiente;
+        ByteBuffer salida;
+        ByteBuffer entrada = ByteBuffer.allocate(4096);
+        long enviada;
+
+        Conexion(SocketChannel canal, int numero) {
+            this.canal = canal;
+            this.numero = numero;
+            this.siguiente = numero; // Cada conexión empieza por una consulta distinta
+        }
+
+        void enviar(ByteBuffer peticion) {
+            salida = peticion;
+            entrada.clear();
+            enviada = System.nanoTime();
+        }
+
+        // Respuesta con prefijo de longitud; agranda el buffer si no cabe
+        boolean respuestaCompleta() {
+            if (entrada.position() < 4) return false;
+            int total = 4 + entrada.getInt(0);
+            if (total > entrada.capacity()) {
+                ByteBuffer mayor = ByteBuffer.allocate(total);
+                entrada.flip();
+                mayor.put(entrada);
+                entrada = mayor;
+            }
+            return entrada.position() >= total;
+        }
+
+        boolean respuestaEsError() {
+            return entrada.get(4) == 'E';
+        }
+    }
+
+    // Latencias en nanosegundos; los percentiles se calculan ordenando al final
+    private static final class Latencias {
+        long[] valores = new long[1 << 16];
+        int n;
+
+        void agregar(long nanos) {
+            if (n == valores.length) valores = Arrays.copyOf(valores, n * 2);
+            valores[n++] = nanos;
+        }
+
+        double percentil(double p) {
+            if (n == 0) return 0;
+            long[] ordenados = Arrays.copyOf(valores, n);
+            Arrays.sort(ordenados);
+            return ordenados[(int) Math.min(n - 1, Math.ceil(p * n) - 1)];
+        }
+    }
+}
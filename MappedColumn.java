@@ -0,0 +1,55 @@
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Columna leída directamente de un archivo mapeado en memoria (ver ColumnarFile): los valores
+// no se copian al heap; el sistema operativo carga las páginas a medida que se leen.
+//   NUMBER: un double por fila
+//   STRING: filas + 1 desplazamientos (int) y después los bytes UTF-8 de todas las cadenas
+public class MappedColumn extends Column {
+    private final int size;
+    private final DoubleBuffer numbers;
+    private final IntBuffer offsets;
+    private final ByteBuffer bytes;
+
+    private MappedColumn(String name, ColumnType type, int size, DoubleBuffer numbers, IntBuffer offsets, ByteBuffer bytes) {
+        super(name, type);
+        this.size = size;
+        this.numbers = numbers;
+        this.offsets = offsets;
+        this.bytes = bytes;
+    }
+
+    static MappedColumn numbers(String name, int size, DoubleBuffer datos) {
+        return new MappedColumn(name, ColumnType.NUMBER, size, datos, null, null);
+    }
+
+    static MappedColumn strings(String name, int size, IntBuffer offsets, ByteBuffer bytes) {
+        return new MappedColumn(name, ColumnType.STRING, size, null, offsets, bytes);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double getNumber(int row) {
+        return numbers.get(row);
+    }
+
+    @Override
+    public String getString(int row) {
+        int inicio = offsets.get(row);
+        byte[] b = new byte[offsets.get(row + 1) - inicio];
+        bytes.get(inicio, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void gatherNumbers(int[] rows, int n, double[] dst) {
+        DoubleBuffer v = numbers;
+        for (int i = 0; i < n; i++) dst[i] = v.get(rows[i]);
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+// Planificador por morsels: reparte las posiciones [0, total) de una relación en rangos fijos de
+// MORSEL filas. Cada trabajador es una tarea del ForkJoinPool compartido (el hilo que llama es el
+// trabajador 0) que toma el siguiente morsel libre de un contador atómico, así que los hilos más
+// rápidos procesan más morsels y ninguno queda esperando a un reparto fijo.
+//
+// Cada trabajador tiene su propio estado (expresiones, lote, buffers); el planificador solo mide,
+// por trabajador, morsels, posiciones recorridas y tiempo, y lo deja en un Report.
+public final class MorselScheduler {
+    public static final int MORSEL = 16 * Batch.SIZE;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    // Estado de un trabajador; recibe los morsels que toma su hilo, en orden creciente
+    interface Worker {
+        void morsel(int index, int from, int to);
+    }
+
+    public MorselScheduler(ForkJoinPool pool, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("El paralelismo debe ser positivo.");
+        }
+        this.pool = pool;
+        this.parallelism = parallelism;
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    static int morsels(int total) {
+        return (int) ((total + (long) MORSEL - 1) / MORSEL);
+    }
+
+    // Crea hasta 'parallelism' trabajadores (nunca más que morsels) y los devuelve en orden de
+    // creación cuando no queda ningún morsel. 'crear' recibe el número de trabajador y se llama
+    // en el hilo que lo va a usar. Si un trabajador falla, los demás no toman más morsels y
+    // run() espera a todos antes de lanzar el primer error: ninguna tarea sigue escribiendo
+    // en los trabajadores después de que run() terminó.
+    <W extends Worker> Report run(int total, IntFunction<W> crear, List<W> trabajadores) {
+        int morsels = morsels(total);
+        int cantidad = Math.max(1, Math.min(parallelism, morsels));
+        AtomicInteger siguiente = new AtomicInteger();
+        WorkerStats[] stats = new WorkerStats[cantidad];
+        List<ForkJoinTask<W>> enviadas = new ArrayList<>(cantidad - 1);
+        for (int w = 1; w < cantidad; w++) {
+            int numero = w;
+            enviadas.add(pool.submit(() -> trabajar(numero, crear, siguiente, morsels, total, stats)));
+        }
+        long inicio = System.nanoTime();
+        Throwable error = null;
+        try {
+            trabajadores.add(trabajar(0, crear, siguiente, morsels, total, stats));
+        } catch (Throwable e) {
+            error = e;
+        }
+        for (ForkJoinTask<W> tarea : enviadas) {
+            try {
+                trabajadores.add(tarea.join());
+            } catch (Throwable e) {
+                if (error == null) error = e;
+            }
+        }
+        // join() solo lanza excepciones no comprobadas
+        if (error instanceof Error) throw (Error) error;
+        if (error != null) throw (RuntimeException) error;
+        List<WorkerStats> lista = new ArrayList<>(cantidad);
+        Collections.addAll(lista, stats);
+        return new Report(total, System.nanoTime() - inicio, lista);
+    }
+
+    private static <W extends Worker> W trabajar(int numero, IntFunction<W> crear, AtomicInteger siguiente, int morsels, int total,
+            WorkerStats[] stats) {
+        long inicio = System.nanoTime();
+        W trabajador;
+        int tomados = 0;
+        long posiciones = 0;
+        try {
+            trabajador = crear.apply(numero);
+            for (int m = siguiente.getAndIncrement(); m < morsels; m = siguiente.getAndIncrement()) {
+                int from = m * MORSEL;
+                int to = (int) Math.min((long) from + MORSEL, total);
+                trabajador.morsel(m, from, to);
+                tomados++;
+                posiciones += to - from;
+            }
+        } catch (Throwable e) {
+            siguiente.set(morsels); // Los demás trabajadores terminan con el morsel que tienen
+            throw e;
+        }
+        stats[numero] = new WorkerStats(numero, Thread.currentThread().getName(), tomados, posiciones, System.nanoTime() - inicio);
+        return trabajador;
+    }
+
+    // Métricas de un trabajador en una ejecución
+    public static final class WorkerStats {
+        public final int worker;
+        public final String thread;
+        public final int morsels;
+        public final long rows;   // Posiciones recorridas (antes del filtro)
+        public final long nanos;  // Desde que se creó hasta que no encontró más morsels
+
+        WorkerStats(int worker, String thread, int morsels, long rows, long nanos) {
+            this.worker = worker;
+            this.thread = thread;
+            this.morsels = morsels;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+    }
+
+    // Resultado de una ejecución: total recorrido, tiempo de pared y métricas por trabajador
+    public static final class Report {
+        public final long rows;
+        public final long nanos;
+        public final List<WorkerStats> workers;
+
+        Report(long rows, long nanos, List<WorkerStats> workers) {
+            this.rows = rows;
+            this.nanos = nanos;
+            this.workers = Collections.unmodifiableList(workers);
+        }
+
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-8s %-34s %8s %12s %14s%n", "worker", "hilo", "morsels", "filas", "filas/s"));
+            for (WorkerStats w : workers) {
+                sb.append(String.format("%-8d %-34s %8d %12d %14.0f%n", w.worker, w.thread, w.morsels, w.rows, w.rowsPerSecond()));
+            }
+            sb.append(String.format("total: %d filas en %.1f ms, %.0f filas/s con %d trabajadores",
+                    rows, nanos / 1e6, rowsPerSecond(), workers.size()));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+// Cuenta los nodos de un árbol (incluido el propio nodo raíz). El recorrido usa una pila
+// explícita: PhaseMetrics lo llama con cada árbol parseado, que puede ser muy profundo.
+public class NodeCounter implements ASTVisitor<Void> {
+    private ASTNode[] pila = new ASTNode[16];
+    private int tope = 0;
+
+    public static int count(ASTNode node) {
+        return node == null ? 0 : new NodeCounter().contar(node);
+    }
+
+    private int contar(ASTNode raiz) {
+        int n = 0;
+        apilar(raiz);
+        while (tope > 0) {
+            ASTNode node = pila[--tope];
+            pila[tope] = null;
+            n++;
+            node.accept(this); // Apila los hijos
+        }
+        return n;
+    }
+
+    private void apilar(ASTNode node) {
+        if (node == null) return;
+        if (tope == pila.length) pila = Arrays.copyOf(pila, tope * 2);
+        pila[tope++] = node;
+    }
+
+    @Override
+    public Void visit(QueryNode node) {
+        apilar(node.select);
+        apilar(node.where);
+        if (node.from != null) {
+            for (FromNode f : node.from) apilar(f);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(SelectNode node) {
+        for (ASTNode f : node.fields) apilar(f);
+        return null;
+    }
+
+    @Override
+    public Void visit(FromNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(WhereNode node) {
+        apilar(node.condition);
+        return null;
+    }
+
+    @Override
+    public Void visit(ArithmeticExprNode node) {
+        apilar(node.left);
+        apilar(node.right);
+        return null;
+    }
+
+    @Override
+    public Void visit(StarNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(FieldNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(NumberNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(StringNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(BooleanNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(NullNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(ParameterNode node) {
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionNode node) {
+        for (ASTNode a : node.arguments) apilar(a);
+        return null;
+    }
+
+    @Override
+    public Void visit(LogicalExprNode node) {
+        apilar(node.left);
+        apilar(node.right);
+        return null;
+    }
+
+    @Override
+    public Void visit(RelationalExprNode node) {
+        apilar(node.left);
+        apilar(node.right);
+        return null;
+    }
+
+    @Override
+    public Void visit(NotNode node) {
+        apilar(node.operand);
+        return null;
+    }
+}
@@ -0,0 +1,203 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Pasada de optimización que se ejecuta después de Parser.consulta():
+//  - pliega aritmética y comparaciones entre literales (1 + 2 * 3 -> 7, "a" < "b" -> TRUE)
+//  - simplifica TRUE/FALSE dentro de AND/OR, solo si el operando que se descarta (y el que queda)
+//    se resolvió contra el catálogo como booleano: sin 'binder' solo se pliegan literales
+//  - elimina la doble negación y niega literales booleanos
+// No modifica el árbol recibido (puede venir compartido de la ParseCache): los nodos
+// que cambian se crean de nuevo y los demás se reutilizan.
+public class Optimizer implements ASTVisitor<ASTNode> {
+    private final ExpressionBinder binder;
+    private long nodosEliminados = 0;
+
+    public Optimizer() {
+        this(null);
+    }
+
+    // Con 'binder', FALSE AND x y TRUE OR x descartan x solo después de validarlo
+    public Optimizer(ExpressionBinder binder) {
+        this.binder = binder;
+    }
+
+    public QueryNode optimize(QueryNode query) {
+        int antes = NodeCounter.count(query);
+        QueryNode resultado = (QueryNode) query.accept(this);
+        nodosEliminados += antes - NodeCounter.count(resultado);
+        return resultado;
+    }
+
+    // Total de nodos eliminados por todas las llamadas a optimize()
+    public long nodosEliminados() {
+        return nodosEliminados;
+    }
+
+    private ASTNode optimize(ASTNode node) {
+        return node == null ? null : node.accept(this);
+    }
+
+    @Override
+    public ASTNode visit(QueryNode node) {
+        ASTNode select = optimize(node.select);
+        ASTNode where = optimize(node.where);
+        if (select == node.select && where == node.where) return node;
+        return new QueryNode(select, node.from, where);
+    }
+
+    @Override
+    public ASTNode visit(SelectNode node) {
+        List<ASTNode> fields = optimizeAll(node.fields);
+        return fields == node.fields ? node : new SelectNode(fields, node.distinct);
+    }
+
+    @Override
+    public ASTNode visit(FromNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(WhereNode node) {
+        ASTNode condition = optimize(node.condition);
+        // WHERE TRUE equivale a no filtrar
+        if (condition instanceof BooleanNode && ((BooleanNode) condition).value) condition = null;
+        return condition == node.condition ? node : new WhereNode(condition);
+    }
+
+    @Override
+    public ASTNode visit(ArithmeticExprNode node) {
+        ASTNode left = optimize(node.left);
+        ASTNode right = optimize(node.right);
+        if (left instanceof NumberNode && right instanceof NumberNode) {
+            double l = Double.parseDouble(((NumberNode) left).number);
+            double r = Double.parseDouble(((NumberNode) right).number);
+            switch (node.operator) {
+                case "+": return number(l + r);
+                case "-": return number(l - r);
+                case "*": return number(l * r);
+                case "/":
+                    if (r != 0) return number(l / r); // La división entre cero se deja para la ejecución
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (left == node.left && right == node.right) return node;
+        return new ArithmeticExprNode(left, node.operator, right);
+    }
+
+    @Override
+    public ASTNode visit(RelationalExprNode node) {
+        ASTNode left = optimize(node.left);
+        ASTNode right = optimize(node.right);
+        int cmp;
+        if (left instanceof NumberNode && right instanceof NumberNode) {
+            cmp = Double.compare(Double.parseDouble(((NumberNode) left).number), Double.parseDouble(((NumberNode) right).number));
+        } else if (left instanceof StringNode && right instanceof StringNode) {
+            cmp = ExpressionBinder.stringValue((StringNode) left).compareTo(ExpressionBinder.stringValue((StringNode) right));
+        } else {
+            // x = x no se pliega: una cadena nula o un NaN no son iguales a sí mismos, y el campo
+            // todavía no se resolvió contra el catálogo (podría no existir)
+            if (left == node.left && right == node.right) return node;
+            return new RelationalExprNode(left, node.operator, right);
+        }
+        switch (node.operator) {
+            case "=": return new BooleanNode(cmp == 0);
+            case "!=": return new BooleanNode(cmp != 0);
+            case "<": return new BooleanNode(cmp < 0);
+            case "<=": return new BooleanNode(cmp <= 0);
+            case ">": return new BooleanNode(cmp > 0);
+            default: return new BooleanNode(cmp >= 0);
+        }
+    }
+
+    @Override
+    public ASTNode visit(LogicalExprNode node) {
+        ASTNode left = optimize(node.left);
+        ASTNode right = optimize(node.right);
+        boolean and = node.operator.equals("AND");
+        // TRUE AND x -> x, FALSE AND x -> FALSE, TRUE OR x -> TRUE, FALSE OR x -> x
+        if (left instanceof BooleanNode && booleano(right)) {
+            return ((BooleanNode) left).value == and ? right : left;
+        }
+        if (right instanceof BooleanNode && booleano(left)) {
+            return ((BooleanNode) right).value == and ? left : right;
+        }
+        if (left == node.left && right == node.right) return node;
+        return new LogicalExprNode(left, node.operator, right);
+    }
+
+    @Override
+    public ASTNode visit(NotNode node) {
+        ASTNode operand = optimize(node.operand);
+        if (operand instanceof NotNode) return ((NotNode) operand).operand;
+        if (operand instanceof BooleanNode) return new BooleanNode(!((BooleanNode) operand).value);
+        return operand == node.operand ? node : new NotNode(operand);
+    }
+
+    @Override
+    public ASTNode visit(FunctionNode node) {
+        List<ASTNode> arguments = optimizeAll(node.arguments);
+        return arguments == node.arguments ? node : new FunctionNode(node.name, arguments);
+    }
+
+    @Override
+    public ASTNode visit(StarNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(FieldNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(NumberNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(StringNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(BooleanNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(NullNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(ParameterNode node) {
+        return node;
+    }
+
+    // El pliegue no puede esconder errores: una columna que no existe lanza la excepción del
+    // binder, y un operando que no es booleano (TRUE AND 5) se deja para que lo rechace la ejecución
+    private boolean booleano(ASTNode node) {
+        if (node instanceof BooleanNode) return true;
+        return binder != null && binder.bind(node).type == ColumnType.BOOLEAN;
+    }
+
+    // Devuelve la misma lista si ningún elemento cambió
+    private List<ASTNode> optimizeAll(List<ASTNode> nodes) {
+        List<ASTNode> result = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            ASTNode original = nodes.get(i);
+            ASTNode optimized = optimize(original);
+            if (optimized != original && result == null) {
+                result = new ArrayList<>(nodes.subList(0, i));
+            }
+            if (result != null) result.add(optimized);
+        }
+        return result == null ? nodes : result;
+    }
+
+    private static NumberNode number(double value) {
+        return new NumberNode(ArrayColumn.formatNumber(value));
+    }
+}
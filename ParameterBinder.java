@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Sustituye cada ParameterNode por el literal correspondiente de 'valores'.
+// Como el Optimizer, no modifica el árbol recibido (es el de una PreparedQuery que se
+// reutiliza): solo se crean de nuevo los nodos en el camino hacia un parámetro.
+class ParameterBinder implements ASTVisitor<ASTNode> {
+    private final ASTNode[] valores;
+
+    ParameterBinder(ASTNode[] valores) {
+        this.valores = valores;
+    }
+
+    // Convierte un valor de Java en el literal del AST: Number, String, Boolean o null
+    static ASTNode literal(Object valor) {
+        if (valor == null) return new NullNode();
+        if (valor instanceof Boolean) return new BooleanNode((Boolean) valor);
+        if (valor instanceof Number) return new NumberNode(ArrayColumn.formatNumber(((Number) valor).doubleValue()));
+        if (valor instanceof String || valor instanceof Character) {
+            String s = valor.toString();
+            if (s.indexOf('"') >= 0) {
+                throw new IllegalArgumentException("Una cadena no puede contener comillas: " + s);
+            }
+            return new StringNode('"' + s + '"'); // Igual que el lexema de una CADENA
+        }
+        throw new IllegalArgumentException("Tipo de parámetro no soportado: " + valor.getClass().getSimpleName());
+    }
+
+    private ASTNode bind(ASTNode node) {
+        return node == null ? null : node.accept(this);
+    }
+
+    @Override
+    public ASTNode visit(QueryNode node) {
+        ASTNode select = bind(node.select);
+        ASTNode where = bind(node.where);
+        if (select == node.select && where == node.where) return node;
+        return new QueryNode(select, node.from, where);
+    }
+
+    @Override
+    public ASTNode visit(SelectNode node) {
+        List<ASTNode> fields = bindAll(node.fields);
+        return fields == node.fields ? node : new SelectNode(fields, node.distinct);
+    }
+
+    @Override
+    public ASTNode visit(FromNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(WhereNode node) {
+        ASTNode condition = bind(node.condition);
+        return condition == node.condition ? node : new WhereNode(condition);
+    }
+
+    @Override
+    public ASTNode visit(ArithmeticExprNode node) {
+        ASTNode left = bind(node.left);
+        ASTNode right = bind(node.right);
+        if (left == node.left && right == node.right) return node;
+        return new ArithmeticExprNode(left, node.operator, right);
+    }
+
+    @Override
+    public ASTNode visit(RelationalExprNode node) {
+        ASTNode left = bind(node.left);
+        ASTNode right = bind(node.right);
+        if (left == node.left && right == node.right) return node;
+        return new RelationalExprNode(left, node.operator, right);
+    }
+
+    @Override
+    public ASTNode visit(LogicalExprNode node) {
+        ASTNode left = bind(node.left);
+        ASTNode right = bind(node.right);
+        if (left == node.left && right == node.right) return node;
+        return new LogicalExprNode(left, node.operator, right);
+    }
+
+    @Override
+    public ASTNode visit(NotNode node) {
+        ASTNode operand = bind(node.operand);
+        return operand == node.operand ? node : new NotNode(operand);
+    }
+
+    @Override
+    public ASTNode visit(FunctionNode node) {
+        List<ASTNode> arguments = bindAll(node.arguments);
+        return arguments == node.arguments ? node : new FunctionNode(node.name, arguments);
+    }
+
+    @Override
+    public ASTNode visit(ParameterNode node) {
+        return valores[node.index];
+    }
+
+    @Override
+    public ASTNode visit(StarNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(FieldNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(NumberNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(StringNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(BooleanNode node) {
+        return node;
+    }
+
+    @Override
+    public ASTNode visit(NullNode node) {
+        return node;
+    }
+
+    // Devuelve la misma lista si ningún elemento cambió
+    private List<ASTNode> bindAll(List<ASTNode> nodes) {
+        List<ASTNode> result = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            ASTNode original = nodes.get(i);
+            ASTNode bound = bind(original);
+            if (bound != original && result == null) {
+                result = new ArrayList<>(nodes.subList(0, i));
+            }
+            if (result != null) result.add(bound);
+        }
+        return result == null ? nodes : result;
+    }
+}
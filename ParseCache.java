@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caché LRU acotada de árboles ya analizados, indexada por el texto de la consulta.
+// Está dividida en segmentos con su propio candado para que varios hilos la usen a la vez.
+// Los QueryNode guardados se congelan (listas inmodificables) y se comparten entre llamadas:
+// quien los obtenga no debe modificar sus campos.
+public class ParseCache {
+    // Estimación aproximada del tamaño de un nodo del AST con su lista (cabecera + campos)
+    private static final int BYTES_POR_NODO = 48;
+    private static final int BYTES_POR_ENTRADA = 64;
+
+    private final Segmento[] segmentos;
+    private final boolean normalizar;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public ParseCache(int capacidad) {
+        this(capacidad, false);
+    }
+
+    // normalizar: ignora diferencias de espacios y comentarios al construir la clave
+    public ParseCache(int capacidad, boolean normalizar) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva.");
+        }
+        int n = Math.min(Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())) * 4, 64);
+        n = Math.min(n, Integer.highestOneBit(capacidad));
+        this.segmentos = new Segmento[n];
+        int porSegmento = (capacidad + n - 1) / n;
+        for (int i = 0; i < n; i++) {
+            segmentos[i] = new Segmento(porSegmento);
+        }
+        this.normalizar = normalizar;
+    }
+
+    // Devuelve el árbol de la consulta, analizándola solo si no está en la caché.
+    // Devuelve null si la consulta tiene errores (los errores no se guardan).
+    public QueryNode parse(String source) {
+        QueryNode cached = get(source);
+        if (cached != null) return cached;
+
+        Scanner scanner = new Scanner(source);
+        scanner.setReportarErrores(false);
+        Parser parser = new Parser(scanner);
+        parser.setReportarErrores(false);
+        QueryNode ast = parser.consulta();
+        if (ast == null || parser.hayErrores() || !scanner.getErrores().isEmpty()) return null;
+        return put(source, ast);
+    }
+
+    public QueryNode get(String source) {
+        String clave = clave(source);
+        QueryNode ast = segmento(clave).get(clave);
+        if (ast != null) aciertos.increment();
+        else fallos.increment();
+        return ast;
+    }
+
+    // Guarda el árbol y devuelve la instancia compartida (la existente si otro hilo se adelantó)
+    public QueryNode put(String source, QueryNode ast) {
+        String clave = clave(source);
+        int[] nodos = new int[1];
+        congelar(ast, nodos);
+        long tamaño = BYTES_POR_ENTRADA + 2L * clave.length() + (long) BYTES_POR_NODO * nodos[0];
+        return segmento(clave).put(clave, new Entrada(ast, tamaño));
+    }
+
+    public long aciertos() {
+        return aciertos.sum();
+    }
+
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    public long desalojos() {
+        return desalojos.sum();
+    }
+
+    public double tasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + fallos.sum();
+        return total == 0 ? 0.0 : (double) a / total;
+    }
+
+    // Memoria aproximada ocupada por las claves y los árboles guardados
+    public long bytesEstimados() {
+        return bytes.get();
+    }
+
+    public int size() {
+        int total = 0;
+        for (Segmento s : segmentos) total += s.size();
+        return total;
+    }
+
+    public void clear() {
+        for (Segmento s : segmentos) s.clear();
+    }
+
+    public String estadisticas() {
+        return String.format("Caché: %d entradas, aciertos=%d, fallos=%d, tasa=%.2f%%, desalojos=%d, memoria≈%d bytes",
+                size(), aciertos(), fallos(), tasaAciertos() * 100, desalojos(), bytesEstimados());
+    }
+
+    private String clave(String source) {
+        return normalizar ? normalizar(source) : source;
+    }
+
+    private Segmento segmento(String clave) {
+        int h = clave.hashCode();
+        h ^= (h >>> 16);
+        return segmentos[h & (segmentos.length - 1)];
+    }
+
+    // Quita comentarios, colapsa espacios y descarta el ';' final, sin tocar las cadenas
+    static String normalizar(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        int i = 0;
+        int n = source.length();
+        boolean espacio = false;
+        while (i < n) {
+            char c = source.charAt(i);
+            if (c == '"') {
+                int fin = source.indexOf('"', i + 1);
+                fin = (fin < 0) ? n : fin + 1;
+                if (espacio && sb.length() > 0) sb.append(' ');
+                espacio = false;
+                sb.append(source, i, fin);
+                i = fin;
+            } else if (c == '-' && i + 1 < n && source.charAt(i + 1) == '-') {
+                int fin = source.indexOf('\n', i);
+                i = (fin < 0) ? n : fin;
+                espacio = true;
+            } else if (c == '/' && i + 1 < n && source.charAt(i + 1) == '*') {
+                int fin = source.indexOf("*/", i + 2);
+                i = (fin < 0) ? n : fin + 2;
+                espacio = true;
+            } else if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                espacio = true;
+                i++;
+            } else {
+                if (espacio && sb.length() > 0) sb.append(' ');
+                espacio = false;
+                sb.append(c);
+                i++;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ';') sb.setLength(len - 1);
+        len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    // Reemplaza las listas del árbol por copias inmodificables y cuenta los nodos
+    static void congelar(ASTNode node, int[] nodos) {
+        if (node == null) return;
+        nodos[0]++;
+        if (node instanceof QueryNode) {
+            QueryNode q = (QueryNode) node;
+            congelar(q.select, nodos);
+            if (q.from != null) {
+                for (FromNode f : q.from) congelar(f, nodos);
+                q.from = inmodificable(q.from);
+            }
+            congelar(q.where, nodos);
+        } else if (node instanceof SelectNode) {
+            SelectNode s = (SelectNode) node;
+            for (ASTNode f : s.fields) congelar(f, nodos);
+            s.fields = inmodificable(s.fields);
+        } else if (node instanceof WhereNode) {
+            congelar(((WhereNode) node).condition, nodos);
+        } else if (node instanceof FunctionNode) {
+            FunctionNode f = (FunctionNode) node;
+            for (ASTNode a : f.arguments) congelar(a, nodos);
+            f.arguments = inmodificable(f.arguments);
+        } else if (node instanceof ArithmeticExprNode) {
+            congelar(((ArithmeticExprNode) node).left, nodos);
+            congelar(((ArithmeticExprNode) node).right, nodos);
+        } else if (node instanceof LogicalExprNode) {
+            congelar(((LogicalExprNode) node).left, nodos);
+            congelar(((LogicalExprNode) node).right, nodos);
+        } else if (node instanceof RelationalExprNode) {
+            congelar(((RelationalExprNode) node).left, nodos);
+            congelar(((RelationalExprNode) node).right, nodos);
+        } else if (node instanceof NotNode) {
+            congelar(((NotNode) node).operand, nodos);
+        }
+    }
+
+    private static <T> List<T> inmodificable(List<T> lista) {
+        return Collections.unmodifiableList(new ArrayList<>(lista));
+    }
+
+    private static final class Entrada {
+        final QueryNode ast;
+        final long bytes;
+
+        Entrada(QueryNode ast, long bytes) {
+            this.ast = ast;
+            this.bytes = bytes;
+        }
+    }
+
+    // Un segmento es un LinkedHashMap en orden de acceso: el primero es el menos usado
+    private final class Segmento {
+        private final int capacidad;
+        private final LinkedHashMap<String, Entrada> mapa;
+
+        Segmento(int capacidad) {
+            this.capacidad = capacidad;
+            this.mapa = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                    if (size() <= Segmento.this.capacidad) return false;
+                    desalojos.increment();
+                    bytes.addAndGet(-eldest.getValue().bytes);
+                    return true;
+                }
+            };
+        }
+
+        synchronized QueryNode get(String clave) {
+            Entrada e = mapa.get(clave);
+            return e == null ? null : e.ast;
+        }
+
+        synchronized QueryNode put(String clave, Entrada entrada) {
+            Entrada existente = mapa.get(clave);
+            if (existente != null) return existente.ast;
+            bytes.addAndGet(entrada.bytes);
+            mapa.put(clave, entrada);
+            return entrada.ast;
+        }
+
+        synchronized int size() {
+            return mapa.size();
+        }
+
+        synchronized void clear() {
+            for (Entrada e : mapa.values()) bytes.addAndGet(-e.bytes);
+            mapa.clear();
+        }
+    }
+}
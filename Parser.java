@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 // Enumeración para representar los posibles estados del analizador sintáctico
@@ -10,39 +11,56 @@ enum ParserState {
 
 // Clase Parser para analizar la secuencia de tokens y construir el AST
 public class Parser {
-    private final List<Token> tokens;
-    private int tokensIndex = 0;
-    private Token lookahead;
+    private final TokenSource tokens;
+    private final SymbolTable simbolos;
+    private TipoToken lookahead;
     private ParserState state;
+    private final List<String> errores = new ArrayList<>();
+    private boolean reportarErrores = true;
+    private int parametros = 0; // Cantidad de '?' leídos
+    private int profundidad = 0; // Altura del último operando construido
+    private int funciones = 0;   // Llamadas a funciones abiertas (estas sí usan la pila de llamadas)
 
     public Parser(List<Token> tokens) {
+        this(new ListTokenSource(tokens));
+    }
+
+    // Consume los tokens bajo demanda (por ejemplo, directamente del Scanner)
+    public Parser(TokenSource tokens) {
+        this(tokens, SymbolTable.global());
+    }
+
+    // Los identificadores se internan en 'simbolos' (debe ser la misma tabla del Scanner)
+    public Parser(TokenSource tokens, SymbolTable simbolos) {
         this.tokens = tokens;
-        this.lookahead = tokens.get(tokensIndex);
+        this.simbolos = simbolos;
+        this.lookahead = tokens.peekTipo();
         this.state = ParserState.BEGIN;
     }
 
     private void match(TipoToken type) {
-        if (lookahead.tipo == type) {
-            tokensIndex++;
-            lookahead = (tokensIndex < tokens.size()) ? tokens.get(tokensIndex) : new Token(TipoToken.EOF, "", 0);
+        if (lookahead == type) {
+            tokens.consume();
+            lookahead = tokens.peekTipo();
         } else {
-            error("Se esperaba: " + type + ", pero se encontró: " + lookahead.tipo);
+            error("Se esperaba: " + type + ", pero se encontró: " + lookahead);
         }
     }
 
     public QueryNode consulta() {
         if (state == ParserState.ERROR) return null;
     
-        if (lookahead.tipo == TipoToken.SELECT) {
+        if (lookahead == TipoToken.SELECT) {
             match(TipoToken.SELECT);
             SelectNode select = d();
-            if (lookahead.tipo == TipoToken.FROM) {
+            if (lookahead == TipoToken.FROM) {
                 match(TipoToken.FROM);
                 List<FromNode> from = t(); // Cambiado a una lista
                 WhereNode where = w();
-                if (lookahead.tipo == TipoToken.SEMICOLON) {
+                if (lookahead == TipoToken.SEMICOLON) {
                     match(TipoToken.SEMICOLON);
                 }
+                if (state == ParserState.ERROR) return null; // No se entregan árboles incompletos
                 return new QueryNode(select, from, where); // Cambia QueryNode para aceptar listas de FromNode
             } else {
                 error("Se esperaba 'FROM' después de 'SELECT'");
@@ -55,38 +73,31 @@ public class Parser {
     
 
     private SelectNode d() {
-        List<ASTNode> fields = new ArrayList<>();
-        if (lookahead.tipo == TipoToken.DISTINCT) {
+        boolean distinct = false;
+        if (lookahead == TipoToken.DISTINCT) {
             match(TipoToken.DISTINCT);
+            distinct = true;
         }
-        fields.addAll(p()); // Delegar a `p()` para manejar las proyecciones
-        return new SelectNode(fields);
+        return new SelectNode(p(), distinct); // Delegar a `p()` para manejar las proyecciones
     }
     
     private List<ASTNode> p() {
-        List<ASTNode> fields = new ArrayList<>();
-        if (lookahead.tipo == TipoToken.STAR) { // Manejar el asterisco (*)
+        if (lookahead == TipoToken.STAR) { // Manejar el asterisco (*)
             match(TipoToken.STAR);
+            List<ASTNode> fields = new ArrayList<>();
             fields.add(new StarNode());
-        } else {
-            fields.addAll(f()); // Delegar a `f()` para manejar las expresiones o funciones
+            return fields;
         }
-        return fields;
+        return f(); // Delegar a `f()` para manejar las expresiones o funciones
     }
     
+    // Lista de proyecciones separadas por comas, sin recursión por elemento
     private List<ASTNode> f() {
         List<ASTNode> fields = new ArrayList<>();
         fields.add(expr());
-        fields.addAll(f1());
-        return fields;
-    }
-    
-    private List<ASTNode> f1() {
-        List<ASTNode> fields = new ArrayList<>();
-        if (lookahead.tipo == TipoToken.COMA) {
+        while (lookahead == TipoToken.COMA) {
             match(TipoToken.COMA);
             fields.add(expr());
-            fields.addAll(f1());
         }
         return fields;
     }
@@ -94,7 +105,7 @@ public class Parser {
     private List<FromNode> t() {
         List<FromNode> tables = new ArrayList<>();
         tables.add(parseTable());
-        while (lookahead.tipo == TipoToken.COMA) {
+        while (lookahead == TipoToken.COMA) {
             match(TipoToken.COMA);
             tables.add(parseTable());
         }
@@ -102,13 +113,11 @@ public class Parser {
     }
     
     private FromNode parseTable() {
-        if (lookahead.tipo == TipoToken.IDENTIFICADOR) {
-            String table = lookahead.lexema;
-            match(TipoToken.IDENTIFICADOR);
-            String alias = null;
-            if (lookahead.tipo == TipoToken.IDENTIFICADOR) {
-                alias = lookahead.lexema;
-                match(TipoToken.IDENTIFICADOR); // Consume el alias
+        if (lookahead == TipoToken.IDENTIFICADOR) {
+            Symbol table = identificador();
+            Symbol alias = null;
+            if (lookahead == TipoToken.IDENTIFICADOR) {
+                alias = identificador(); // Consume el alias
             }
             return new FromNode(table, alias);
         } else {
@@ -117,146 +126,294 @@ public class Parser {
         }
     }
 
+    // Interna y consume el identificador actual (lookahead ya verificado)
+    private Symbol identificador() {
+        Symbol s = tokens.peekSimbolo(simbolos);
+        match(TipoToken.IDENTIFICADOR);
+        return s;
+    }
+
+    // Un solo operando: literal, campo, función, negación o expresión entre paréntesis
     private ASTNode expr() {
-        ASTNode node;
-    
-        if (lookahead.tipo == TipoToken.IDENTIFICADOR) {
-            String field = lookahead.lexema;
-            match(TipoToken.IDENTIFICADOR);
+        return expression(true);
+    }
+
+    private ASTNode primary() {
+        profundidad = 1; // Las hojas; una función suma la altura de sus argumentos
+        if (lookahead == TipoToken.IDENTIFICADOR) {
+            Symbol field = identificador();
     
             // Manejo de acceso a tablas (schema.tables)
-            if (lookahead.tipo == TipoToken.DOT) {
+            if (lookahead == TipoToken.DOT) {
                 match(TipoToken.DOT);
-                String subField = lookahead.lexema;
+                // Si falta el identificador, match() registra el error y el árbol se descarta
+                Symbol column = lookahead == TipoToken.IDENTIFICADOR ? tokens.peekSimbolo(simbolos) : null;
                 match(TipoToken.IDENTIFICADOR);
-                return new FieldNode(field + "." + subField);
+                return new FieldNode(field, column);
             }
     
             // Manejo de funciones (func(...))
-            if (lookahead.tipo == TipoToken.LEFT_PAREN) {
+            if (lookahead == TipoToken.LEFT_PAREN) {
                 match(TipoToken.LEFT_PAREN);
                 List<ASTNode> arguments = new ArrayList<>();
-                if (lookahead.tipo != TipoToken.RIGHT_PAREN) { // Procesa argumentos
-                    arguments.add(expr());
-                    while (lookahead.tipo == TipoToken.COMA) {
+                if (lookahead == TipoToken.STAR) { // count(*)
+                    match(TipoToken.STAR);
+                    arguments.add(new StarNode());
+                } else if (lookahead != TipoToken.RIGHT_PAREN) { // Procesa argumentos
+                    if (funciones == MAX_PROFUNDIDAD) return demasiadoProfunda();
+                    funciones++;
+                    int altura = argumento(arguments);
+                    while (lookahead == TipoToken.COMA && state != ParserState.ERROR) {
                         match(TipoToken.COMA);
-                        arguments.add(expr());
+                        altura = Math.max(altura, argumento(arguments));
                     }
+                    funciones--;
+                    if (state == ParserState.ERROR) return null;
+                    if (altura == MAX_PROFUNDIDAD) return demasiadoProfunda();
+                    profundidad = altura + 1;
                 }
                 match(TipoToken.RIGHT_PAREN);
-                return new FunctionNode(field, arguments);
+                return new FunctionNode(field.name, arguments);
             }
     
             return new FieldNode(field); // Nodo para un identificador simple
-        } else if (lookahead.tipo == TipoToken.NUMERO) {
-            String number = lookahead.lexema;
+        } else if (lookahead == TipoToken.NUMERO) {
+            String number = tokens.peekLexema();
             match(TipoToken.NUMERO);
             return new NumberNode(number);
-        } else if (lookahead.tipo == TipoToken.CADENA) {
-            String string = lookahead.lexema;
+        } else if (lookahead == TipoToken.CADENA) {
+            String string = tokens.peekLexema();
             match(TipoToken.CADENA);
             return new StringNode(string);
-        } else if (lookahead.tipo == TipoToken.LEFT_PAREN) {
-            match(TipoToken.LEFT_PAREN);
-            node = logicOr(); // Procesa expresiones dentro de paréntesis
-            match(TipoToken.RIGHT_PAREN);
-            return node;
-        } else if (lookahead.tipo == TipoToken.NOT_OPERATOR) {
-            match(TipoToken.NOT_OPERATOR);
-            return new NotNode(expr());
+        } else if (lookahead == TipoToken.TRUE || lookahead == TipoToken.FALSE) {
+            boolean value = lookahead == TipoToken.TRUE;
+            match(lookahead);
+            return new BooleanNode(value);
+        } else if (lookahead == TipoToken.NULL) {
+            match(TipoToken.NULL);
+            return new NullNode();
+        } else if (lookahead == TipoToken.PARAMETRO) {
+            match(TipoToken.PARAMETRO);
+            return new ParameterNode(parametros++);
         } else {
             error("Expresión no válida.");
             return null;
         }
     }
     
+    // Agrega el siguiente argumento y devuelve su altura
+    private int argumento(List<ASTNode> arguments) {
+        arguments.add(expr());
+        return profundidad;
+    }
+
     private WhereNode w() {
-        if (lookahead.tipo == TipoToken.WHERE) {
+        if (lookahead == TipoToken.WHERE) {
             match(TipoToken.WHERE);
-            ASTNode condition = logicOr(); // Delegar a `logicOr()` para manejar la lógica
+            ASTNode condition = expression(false);
             return new WhereNode(condition);
         }
         return new WhereNode(null);
     }
-    private ASTNode logicOr() {
-        ASTNode left = logicAnd();
-        while (lookahead.tipo == TipoToken.OR) {
-            match(TipoToken.OR);
-            ASTNode right = logicAnd();
-            left = new LogicalExprNode(left, "OR", right);
-        }
-        return left;
+
+    // Precedencia de los operadores binarios (0 = no es operador binario).
+    // Todos son asociativos por la izquierda.
+    private static final int[] precedencia = new int[TipoToken.values().length];
+    static {
+        precedencia[TipoToken.OR.ordinal()] = 1;
+        precedencia[TipoToken.AND.ordinal()] = 2;
+        precedencia[TipoToken.EQUAL.ordinal()] = 4;
+        precedencia[TipoToken.NE.ordinal()] = 4;
+        precedencia[TipoToken.LT.ordinal()] = 5;
+        precedencia[TipoToken.LE.ordinal()] = 5;
+        precedencia[TipoToken.GT.ordinal()] = 5;
+        precedencia[TipoToken.GE.ordinal()] = 5;
+        precedencia[TipoToken.PLUS.ordinal()] = 6;
+        precedencia[TipoToken.MINUS.ordinal()] = 6;
+        precedencia[TipoToken.STAR.ordinal()] = 7;
+        precedencia[TipoToken.SLASH.ordinal()] = 7;
     }
-    
-    private ASTNode logicAnd() {
-        ASTNode left = equality();
-        while (lookahead.tipo == TipoToken.AND) {
-            match(TipoToken.AND);
-            ASTNode right = equality();
-            left = new LogicalExprNode(left, "AND", right);
+
+    // Marcas en la pila de operadores para '(' y para las negaciones. '!' se aplica apenas termina
+    // su operando; NOT, como en SQL, queda entre AND y las comparaciones: NOT a = 1 es NOT (a = 1).
+    private static final int PARENTESIS = TipoToken.LEFT_PAREN.ordinal();
+    private static final int NEGACION = TipoToken.NOT_OPERATOR.ordinal();
+    private static final int NOT = TipoToken.NOT.ordinal();
+    private static final int PRECEDENCIA_NOT = 3;
+    private static final TipoToken[] TIPOS = TipoToken.values();
+    private static final int[] SIN_OPERADORES = new int[0];
+    private static final ASTNode[] SIN_OPERANDOS = new ASTNode[0];
+
+    // Altura máxima de una expresión (como SQLITE_MAX_EXPR_DEPTH). El parser no usa la pila de
+    // llamadas para los operadores, pero el Optimizer, las impresoras, la ParseCache y el
+    // Fingerprinter recorren el árbol recursivamente: una expresión más alta, como una suma de
+    // miles de términos o miles de NOT seguidos, se rechaza como error de sintaxis.
+    static final int MAX_PROFUNDIDAD = 1000;
+
+    // Analizador de expresiones por precedencia de operadores con una pila explícita.
+    // Los paréntesis, las negaciones y los operadores binarios se apilan en arreglos en
+    // lugar de usar la pila de llamadas, así que la profundidad de recursión solo crece con
+    // las llamadas a funciones anidadas. Con soloOperando se detiene tras el primer operando
+    // completo (literal, campo, función, negación o paréntesis), como las proyecciones del SELECT.
+    // Deja en 'profundidad' la altura del árbol devuelto.
+    private ASTNode expression(boolean soloOperando) {
+        // Las pilas se crean al primer uso: la mayoría de los operandos no las necesita
+        int[] operadores = SIN_OPERADORES;
+        ASTNode[] izquierdos = SIN_OPERANDOS; // Operando izquierdo de cada operador binario pendiente
+        int[] alturas = SIN_OPERADORES;       // Altura de cada operando izquierdo
+        int top = 0;
+        int abiertos = 0;
+
+        while (true) {
+            // Prefijos: negaciones y paréntesis de apertura
+            while (lookahead == TipoToken.NOT_OPERATOR || lookahead == TipoToken.NOT || lookahead == TipoToken.LEFT_PAREN) {
+                if (top == operadores.length) {
+                    operadores = Arrays.copyOf(operadores, Math.max(8, top * 2));
+                    izquierdos = Arrays.copyOf(izquierdos, Math.max(8, top * 2));
+                    alturas = Arrays.copyOf(alturas, Math.max(8, top * 2));
+                }
+                alturas[top] = 0; // Las negaciones no tienen operando izquierdo
+                if (lookahead == TipoToken.LEFT_PAREN) {
+                    operadores[top++] = PARENTESIS;
+                    abiertos++;
+                } else {
+                    operadores[top++] = lookahead == TipoToken.NOT ? NOT : NEGACION;
+                }
+                match(lookahead);
+            }
+
+            ASTNode operando = primary();
+            if (operando == null) return null;
+            int altura = profundidad;
+
+            // Sufijos: aplica negaciones pendientes, cierra paréntesis o apila el siguiente operador
+            while (true) {
+                while (top > 0 && operadores[top - 1] == NEGACION) {
+                    if (altura++ == MAX_PROFUNDIDAD) return demasiadoProfunda();
+                    operando = new NotNode(operando);
+                    top--;
+                }
+                if (soloOperando && abiertos == 0) {
+                    // Fuera de paréntesis solo pueden quedar NOT pendientes
+                    for (; top > 0; top--) {
+                        if (altura++ == MAX_PROFUNDIDAD) return demasiadoProfunda();
+                        operando = new NotNode(operando);
+                    }
+                    profundidad = altura;
+                    return operando;
+                }
+
+                int p = precedencia[lookahead.ordinal()];
+                if (p > 0) {
+                    while (top > 0 && nivel(operadores[top - 1]) >= p) {
+                        top--;
+                        altura = Math.max(alturas[top], altura) + 1;
+                        if (altura > MAX_PROFUNDIDAD) return demasiadoProfunda();
+                        operando = reducir(izquierdos[top], operadores[top], operando);
+                    }
+                    if (top == operadores.length) {
+                        operadores = Arrays.copyOf(operadores, Math.max(8, top * 2));
+                        izquierdos = Arrays.copyOf(izquierdos, Math.max(8, top * 2));
+                        alturas = Arrays.copyOf(alturas, Math.max(8, top * 2));
+                    }
+                    izquierdos[top] = operando;
+                    alturas[top] = altura;
+                    operadores[top++] = lookahead.ordinal();
+                    match(lookahead);
+                    break; // Falta el operando derecho
+                }
+
+                // Fin de la expresión o del paréntesis actual: reduce los operadores pendientes
+                while (top > 0 && operadores[top - 1] != PARENTESIS) {
+                    top--;
+                    altura = Math.max(alturas[top], altura) + 1;
+                    if (altura > MAX_PROFUNDIDAD) return demasiadoProfunda();
+                    operando = reducir(izquierdos[top], operadores[top], operando);
+                }
+                if (abiertos == 0) {
+                    profundidad = altura;
+                    return operando;
+                }
+                if (lookahead != TipoToken.RIGHT_PAREN) {
+                    match(TipoToken.RIGHT_PAREN); // Reporta el error
+                    return null;
+                }
+                match(TipoToken.RIGHT_PAREN);
+                top--;
+                abiertos--;
+            }
         }
-        return left;
     }
-    
-    private ASTNode equality() {
-        ASTNode left = comparison();
-        while (lookahead.tipo == TipoToken.EQUAL || lookahead.tipo == TipoToken.NE) {
-            String operator = lookahead.lexema;
-            match(lookahead.tipo);
-            ASTNode right = comparison();
-            left = new RelationalExprNode(left, operator, right);
-        }
-        return left;
+
+    private ASTNode demasiadoProfunda() {
+        error("La expresión supera los " + MAX_PROFUNDIDAD + " niveles de anidamiento.");
+        return null;
     }
-    
-    private ASTNode comparison() {
-        ASTNode left = arithmeticExpr(); // Usa `arithmeticExpr` para cálculos
-        while (lookahead.tipo == TipoToken.LT || lookahead.tipo == TipoToken.GT ||
-               lookahead.tipo == TipoToken.LE || lookahead.tipo == TipoToken.GE) {
-            String operator = lookahead.lexema;
-            match(lookahead.tipo);
-            ASTNode right = arithmeticExpr();
-            left = new RelationalExprNode(left, operator, right);
-        }
-        return left;
+
+    // Precedencia de lo que hay en la pila: NOT espera a las comparaciones, '!' nunca
+    private static int nivel(int operador) {
+        if (operador == NOT) return PRECEDENCIA_NOT;
+        if (operador == NEGACION) return Integer.MAX_VALUE;
+        return precedencia[operador];
     }
-    
-    private ASTNode arithmeticExpr() {
-        ASTNode left = term();
-        while (lookahead.tipo == TipoToken.PLUS || lookahead.tipo == TipoToken.MINUS) {
-            String operator = lookahead.lexema;
-            match(lookahead.tipo);
-            ASTNode right = term();
-            left = new ArithmeticExprNode(left, operator, right);
-        }
-        return left;
+
+    private static ASTNode reducir(ASTNode left, int operador, ASTNode right) {
+        if (operador == NOT || operador == NEGACION) return new NotNode(right);
+        return binario(left, TIPOS[operador], right);
     }
-    
-    private ASTNode term() {
-        ASTNode left = factor();
-        while (lookahead.tipo == TipoToken.SLASH || lookahead.tipo == TipoToken.STAR) {
-            String operator = lookahead.lexema;
-            match(lookahead.tipo);
-            ASTNode right = factor();
-            left = new ArithmeticExprNode(left, operator, right);
+
+    private static ASTNode binario(ASTNode left, TipoToken tipo, ASTNode right) {
+        switch (tipo) {
+            case OR: return new LogicalExprNode(left, "OR", right);
+            case AND: return new LogicalExprNode(left, "AND", right);
+            case PLUS:
+            case MINUS:
+            case STAR:
+            case SLASH:
+                return new ArithmeticExprNode(left, operador(tipo), right);
+            default:
+                return new RelationalExprNode(left, operador(tipo), right);
         }
-        return left;
     }
-    
-    private ASTNode factor() {
-        if (lookahead.tipo == TipoToken.LEFT_PAREN) {
-            match(TipoToken.LEFT_PAREN);
-            ASTNode node = logicOr();
-            match(TipoToken.RIGHT_PAREN);
-            return node;
-        } else if (lookahead.tipo == TipoToken.NUMERO || lookahead.tipo == TipoToken.CADENA) {
-            return expr(); // Procesa valores literales
-        } else {
-            return expr(); // Llama a `expr` para manejar cualquier nodo
+
+    // Los operadores tienen un lexema fijo, así que no hace falta materializarlo
+    private static String operador(TipoToken tipo) {
+        switch (tipo) {
+            case EQUAL: return "=";
+            case NE: return "!=";
+            case LT: return "<";
+            case LE: return "<=";
+            case GT: return ">";
+            case GE: return ">=";
+            case PLUS: return "+";
+            case MINUS: return "-";
+            case STAR: return "*";
+            case SLASH: return "/";
+            default: throw new IllegalArgumentException("No es un operador: " + tipo);
         }
     }
+
+    // Parámetros '?' encontrados hasta ahora, numerados de izquierda a derecha
+    public int getParametros() {
+        return parametros;
+    }
+
+    // Por defecto los errores se imprimen; en modo silencioso solo se acumulan
+    public void setReportarErrores(boolean reportarErrores) {
+        this.reportarErrores = reportarErrores;
+    }
+
+    public List<String> getErrores() {
+        return errores;
+    }
+
+    public boolean hayErrores() {
+        return state == ParserState.ERROR;
+    }
+
     private void error(String mensaje) {
-        System.err.println("Error: " + mensaje);
+        errores.add("Error: " + mensaje);
+        if (reportarErrores) System.err.println("Error: " + mensaje);
         state = ParserState.ERROR;
     }
 }
\ No newline at end of file
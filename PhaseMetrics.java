@@ -0,0 +1,206 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.EventType;
+
+// Instrumentación de las fases de una consulta: histogramas de latencia de escaneo, análisis e
+// impresión, bytes asignados por consulta y los eventos de JFR de QueryEvents.
+//
+// Uso en cada punto de entrada:
+//   PhaseMetrics.Medicion m = PhaseMetrics.iniciar(source.length());   // null si todo está apagado
+//   ... scan ...   if (m != null) m.scan(tokens);
+//   ... parse ...  if (m != null) m.parse(ast, fallo);
+//   ... print ...  if (m != null) m.print();
+//
+// Apagada (por defecto) solo cuesta leer un booleano y consultar si JFR tiene los eventos habilitados.
+// Se enciende con -Dcompiladores.metricas=true, por JMX o desde el REPL (\metricas on).
+public final class PhaseMetrics implements PhaseMetricsMXBean {
+    private static volatile boolean habilitado = Boolean.getBoolean("compiladores.metricas");
+
+    static final LatencyHistogram SCAN = new LatencyHistogram("scan");
+    static final LatencyHistogram PARSE = new LatencyHistogram("parse");
+    static final LatencyHistogram PRINT = new LatencyHistogram("print");
+    static final LatencyHistogram BYTES = new LatencyHistogram("bytes");
+    private static final LatencyHistogram[] FASES = {SCAN, PARSE, PRINT};
+
+    private static final EventType EVENTO_SCAN = EventType.getEventType(ScanEvent.class);
+    private static final EventType EVENTO_PARSE = EventType.getEventType(ParseEvent.class);
+    private static final EventType EVENTO_PRINT = EventType.getEventType(PrintEvent.class);
+
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final PhaseMetrics INSTANCIA = new PhaseMetrics();
+    private static boolean registrado = false;
+
+    private PhaseMetrics() {
+    }
+
+    public static boolean enabled() {
+        return habilitado;
+    }
+
+    public static void setHabilitado(boolean valor) {
+        habilitado = valor;
+    }
+
+    // Registra el MXBean una sola vez en el servidor de plataforma
+    public static synchronized void registrarJmx() {
+        if (registrado) return;
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            servidor.registerMBean(INSTANCIA, new ObjectName("compiladores:type=PhaseMetrics"));
+            registrado = true;
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar PhaseMetrics en JMX", e);
+        }
+    }
+
+    // Empieza a medir una consulta; null si ni las métricas ni los eventos de JFR están activos
+    public static Medicion iniciar(int inputLength) {
+        boolean jfr = EVENTO_SCAN.isEnabled() || EVENTO_PARSE.isEnabled() || EVENTO_PRINT.isEnabled();
+        if (!habilitado && !jfr) return null;
+        return new Medicion(inputLength, habilitado, jfr);
+    }
+
+    // Mediciones de una sola consulta en un solo hilo. Cada evento de JFR empieza al terminar
+    // la fase anterior, así su duración es la de su propia fase.
+    public static final class Medicion {
+        private final int inputLength;
+        private final boolean histogramas;
+        private final long bytesInicio;
+        private long marca;
+        private int tokens;
+        private int nodos;
+        private ScanEvent eventoScan;
+        private ParseEvent eventoParse;
+        private PrintEvent eventoPrint;
+
+        private Medicion(int inputLength, boolean histogramas, boolean jfr) {
+            this.inputLength = inputLength;
+            this.histogramas = histogramas;
+            this.bytesInicio = histogramas ? HILOS.getCurrentThreadAllocatedBytes() : 0;
+            if (jfr) {
+                eventoScan = new ScanEvent();
+                eventoScan.begin();
+            }
+            this.marca = System.nanoTime();
+        }
+
+        public void scan(int tokens) {
+            long ahora = System.nanoTime();
+            this.tokens = tokens;
+            if (histogramas) SCAN.record(ahora - marca);
+            if (eventoScan != null) {
+                eventoScan.end();
+                if (eventoScan.shouldCommit()) {
+                    eventoScan.inputLength = inputLength;
+                    eventoScan.tokens = tokens;
+                    eventoScan.commit();
+                }
+                eventoParse = new ParseEvent();
+                eventoParse.begin();
+            }
+            marca = System.nanoTime();
+        }
+
+        // 'ast' puede ser null si la consulta tiene errores
+        public void parse(ASTNode ast, boolean fallo) {
+            long ahora = System.nanoTime();
+            if (histogramas) PARSE.record(ahora - marca);
+            if (eventoParse != null) eventoParse.end();
+            if (ast != null) nodos = NodeCounter.count(ast);
+            if (eventoParse != null) {
+                if (eventoParse.shouldCommit()) {
+                    eventoParse.inputLength = inputLength;
+                    eventoParse.tokens = tokens;
+                    eventoParse.nodes = nodos;
+                    eventoParse.failed = fallo;
+                    eventoParse.commit();
+                }
+                eventoPrint = new PrintEvent();
+                eventoPrint.begin();
+            }
+            marca = System.nanoTime(); // No se cuenta el recorrido de NodeCounter
+        }
+
+        // Cierra la impresión y la consulta completa
+        public void print() {
+            long ahora = System.nanoTime();
+            if (histogramas) {
+                PRINT.record(ahora - marca);
+                BYTES.record(HILOS.getCurrentThreadAllocatedBytes() - bytesInicio);
+            }
+            if (eventoPrint != null) {
+                eventoPrint.end();
+                if (eventoPrint.shouldCommit()) {
+                    eventoPrint.inputLength = inputLength;
+                    eventoPrint.nodes = nodos;
+                    eventoPrint.commit();
+                }
+            }
+        }
+    }
+
+    // Texto con p50/p99/p999 y máximo de cada fase
+    public static String texto() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-8s %10s %10s %10s %10s %10s%n", "fase", "n", "p50 µs", "p99 µs", "p999 µs", "max µs"));
+        for (LatencyHistogram h : FASES) {
+            sb.append(String.format("%-8s %10d %10.1f %10.1f %10.1f %10.1f%n", h.nombre(), h.count(),
+                    h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.max() / 1e3));
+        }
+        sb.append(String.format("%-8s %10d %10d %10d %10d %10d  (bytes asignados por consulta)",
+                BYTES.nombre(), BYTES.count(), BYTES.percentile(0.50), BYTES.percentile(0.99),
+                BYTES.percentile(0.999), BYTES.max()));
+        if (!habilitado) sb.append(System.lineSeparator()).append("(métricas deshabilitadas)");
+        return sb.toString();
+    }
+
+    public static void limpiar() {
+        for (LatencyHistogram h : FASES) h.reset();
+        BYTES.reset();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return habilitado;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        habilitado = enabled;
+    }
+
+    @Override
+    public long getQueries() {
+        return PRINT.count();
+    }
+
+    @Override
+    public Map<String, Double> getPercentiles() {
+        Map<String, Double> valores = new LinkedHashMap<>();
+        for (LatencyHistogram h : FASES) {
+            valores.put(h.nombre() + ".p50", h.percentile(0.50) / 1e3);
+            valores.put(h.nombre() + ".p99", h.percentile(0.99) / 1e3);
+            valores.put(h.nombre() + ".p999", h.percentile(0.999) / 1e3);
+        }
+        valores.put("bytes.p50", (double) BYTES.percentile(0.50));
+        valores.put("bytes.p99", (double) BYTES.percentile(0.99));
+        valores.put("bytes.p999", (double) BYTES.percentile(0.999));
+        return valores;
+    }
+
+    @Override
+    public String dump() {
+        return texto();
+    }
+
+    @Override
+    public void reset() {
+        limpiar();
+    }
+}
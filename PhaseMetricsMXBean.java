@@ -0,0 +1,17 @@
+import java.util.Map;
+
+// Vista JMX de PhaseMetrics (nombre: compiladores:type=PhaseMetrics)
+public interface PhaseMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getQueries();
+
+    // "scan.p50", "parse.p99", "print.p999", ... en microsegundos; "bytes.p50", ... en bytes
+    Map<String, Double> getPercentiles();
+
+    String dump();
+
+    void reset();
+}
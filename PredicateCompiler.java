@@ -0,0 +1,537 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compila la condición de un WHERE a una clase oculta (MethodHandles.Lookup.defineHiddenClass)
+// que implementa CompiledPredicate. El cuerpo del ciclo queda como código lineal sin llamadas
+// virtuales por nodo, y el JIT puede optimizar todo el predicado junto.
+// Las clases se guardan por forma de la consulta (estructura + tipos, sin los literales) en una
+// caché LRU acotada; las clases ocultas que salen de ella las puede descargar el recolector.
+// Si la condición usa algo que no se sabe compilar, es más grande que MAX_NODOS o la JVM rechaza
+// la clase generada, se usa el intérprete por lotes (VectorExpr).
+public class PredicateCompiler {
+    // Con este límite el método generado queda muy por debajo de 64 KB y los saltos en 16 bits
+    static final int MAX_NODOS = 1024;
+    static final int MAX_FORMAS = 256;
+
+    private static final Map<String, CompiledPredicate> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledPredicate> eldest) {
+            return size() > MAX_FORMAS;
+        }
+    };
+
+    private static final String NOMBRE_CLASE = "PredicadoCompilado";
+    private static final String DESCRIPTOR_TEST = "([[D[[Ljava/lang/String;[D[Ljava/lang/String;I[Z)V";
+
+    // Variables locales del método test
+    private static final int NUMBERS = 1, STRINGS = 2, NUM_CONSTS = 3, STR_CONSTS = 4, N = 5, OUT = 6, I = 7;
+
+    // Devuelve el predicado compilado o, si no es posible, el del intérprete
+    static VectorExpr compile(ASTNode condition, ExpressionBinder binder) {
+        if (condition instanceof BooleanNode) return binder.bind(condition);
+        Generador g = new Generador(binder);
+        try {
+            g.analizar(condition);
+        } catch (UnsupportedOperationException e) {
+            return binder.bind(condition);
+        }
+        String forma = g.forma.toString();
+        CompiledPredicate predicate;
+        synchronized (cache) {
+            predicate = cache.get(forma);
+        }
+        if (predicate == null) {
+            // Se define fuera del candado: si dos hilos se adelantan, queda una de las dos clases
+            try {
+                predicate = definir(g.condition);
+            } catch (IllegalStateException | LinkageError e) {
+                return binder.bind(condition);
+            }
+            synchronized (cache) {
+                CompiledPredicate previo = cache.putIfAbsent(forma, predicate);
+                if (previo != null) predicate = previo;
+            }
+        }
+        return new CompiledFilterExpr(predicate, g);
+    }
+
+    static int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // Usado por el código generado: comparación de cadenas donde un NULL nunca cumple
+    public static boolean compare(String l, String r, int operator) {
+        if (l == null || r == null) return false;
+        int c = l.compareTo(r);
+        switch (operator) {
+            case CompareExpr.EQ: return c == 0;
+            case CompareExpr.NE: return c != 0;
+            case CompareExpr.LT: return c < 0;
+            case CompareExpr.LE: return c <= 0;
+            case CompareExpr.GT: return c > 0;
+            default: return c >= 0;
+        }
+    }
+
+    private static CompiledPredicate definir(Nodo condition) {
+        byte[] bytes = new ClassFile(condition).toBytes();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledPredicate) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("No se pudo definir el predicado compilado", e);
+        }
+    }
+
+    // Árbol intermedio ya tipado: las hojas apuntan a ranuras de columnas o de literales
+    private static final class Nodo {
+        final char kind; // 'N' columna numérica, 'S' columna texto, 'n' literal numérico, 's' literal texto,
+                         // 'b' literal booleano, 'A' aritmética, 'C' comparación, 'L' lógica, '!' negación
+        final ColumnType type;
+        final int slot;
+        final int operator;
+        final Nodo left;
+        final Nodo right;
+
+        Nodo(char kind, ColumnType type, int slot, int operator, Nodo left, Nodo right) {
+            this.kind = kind;
+            this.type = type;
+            this.slot = slot;
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    // Recorre la condición, asigna ranuras a columnas y literales y construye la clave de forma
+    static final class Generador {
+        private final ExpressionBinder binder;
+        final StringBuilder forma = new StringBuilder();
+        final List<ColumnRefExpr> numColumns = new ArrayList<>();
+        final List<ColumnRefExpr> strColumns = new ArrayList<>();
+        final List<Double> numConsts = new ArrayList<>();
+        final List<String> strConsts = new ArrayList<>();
+        private final Map<Column, Integer> ranuras = new HashMap<>();
+        private int nodos;
+        Nodo condition;
+
+        Generador(ExpressionBinder binder) {
+            this.binder = binder;
+        }
+
+        void analizar(ASTNode node) {
+            condition = nodo(node);
+            if (condition.type != ColumnType.BOOLEAN) {
+                throw new IllegalArgumentException("La condición del WHERE debe ser booleana.");
+            }
+        }
+
+        private Nodo nodo(ASTNode node) {
+            // Se corta antes de bajar más: también acota la profundidad de la recursión
+            if (++nodos > MAX_NODOS) {
+                throw new UnsupportedOperationException("El predicado supera " + MAX_NODOS + " nodos");
+            }
+            if (node instanceof FieldNode) {
+                ColumnRefExpr ref = binder.resolve((FieldNode) node);
+                boolean numero = ref.type == ColumnType.NUMBER;
+                List<ColumnRefExpr> lista = numero ? numColumns : strColumns;
+                Integer slot = ranuras.get(ref.column);
+                if (slot == null || lista.get(slot).source != ref.source) {
+                    slot = lista.size();
+                    lista.add(ref);
+                    ranuras.put(ref.column, slot);
+                }
+                forma.append(numero ? 'N' : 'S').append(slot);
+                return new Nodo(numero ? 'N' : 'S', ref.type, slot, 0, null, null);
+            } else if (node instanceof NumberNode) {
+                numConsts.add(Double.parseDouble(((NumberNode) node).number));
+                forma.append('n').append(numConsts.size() - 1);
+                return new Nodo('n', ColumnType.NUMBER, numConsts.size() - 1, 0, null, null);
+            } else if (node instanceof StringNode) {
+                strConsts.add(ExpressionBinder.stringValue((StringNode) node));
+                forma.append('s').append(strConsts.size() - 1);
+                return new Nodo('s', ColumnType.STRING, strConsts.size() - 1, 0, null, null);
+            } else if (node instanceof BooleanNode) {
+                boolean value = ((BooleanNode) node).value;
+                forma.append(value ? "T" : "F");
+                return new Nodo('b', ColumnType.BOOLEAN, value ? 1 : 0, 0, null, null);
+            } else if (node instanceof ArithmeticExprNode) {
+                ArithmeticExprNode a = (ArithmeticExprNode) node;
+                forma.append('(').append(a.operator);
+                Nodo l = expect(nodo(a.left), ColumnType.NUMBER, a.operator);
+                Nodo r = expect(nodo(a.right), ColumnType.NUMBER, a.operator);
+                forma.append(')');
+                return new Nodo('A', ColumnType.NUMBER, 0, a.operator.charAt(0), l, r);
+            } else if (node instanceof RelationalExprNode) {
+                RelationalExprNode r = (RelationalExprNode) node;
+                forma.append('(').append(r.operator);
+                Nodo left = nodo(r.left);
+                Nodo right = nodo(r.right);
+                forma.append(')');
+                if (left.type != right.type || left.type == ColumnType.BOOLEAN) {
+                    throw new IllegalArgumentException("No se pueden comparar " + left.type + " y " + right.type + " con " + r.operator);
+                }
+                return new Nodo('C', ColumnType.BOOLEAN, 0, CompareExpr.operator(r.operator), left, right);
+            } else if (node instanceof LogicalExprNode) {
+                LogicalExprNode l = (LogicalExprNode) node;
+                forma.append('(').append(l.operator);
+                Nodo left = expect(nodo(l.left), ColumnType.BOOLEAN, l.operator);
+                Nodo right = expect(nodo(l.right), ColumnType.BOOLEAN, l.operator);
+                forma.append(')');
+                return new Nodo('L', ColumnType.BOOLEAN, 0, l.operator.equals("AND") ? 1 : 0, left, right);
+            } else if (node instanceof NotNode) {
+                forma.append("(!");
+                Nodo operand = expect(nodo(((NotNode) node).operand), ColumnType.BOOLEAN, "NOT");
+                forma.append(')');
+                return new Nodo('!', ColumnType.BOOLEAN, 0, 0, operand, null);
+            }
+            throw new UnsupportedOperationException(node.getClass().getSimpleName());
+        }
+
+        private static Nodo expect(Nodo nodo, ColumnType type, String operator) {
+            if (nodo.type != type) {
+                throw new IllegalArgumentException("El operador " + operator + " espera " + type + " pero recibió " + nodo.type);
+            }
+            return nodo;
+        }
+    }
+
+    // Genera un class file mínimo (versión 49, que no requiere StackMapTable)
+    private static final class ClassFile {
+        private static final int ALOAD_0 = 0x2a, ILOAD = 0x15, ALOAD = 0x19, ISTORE = 0x36, ICONST_0 = 0x03, ICONST_1 = 0x04,
+                BIPUSH = 0x10, SIPUSH = 0x11, DALOAD = 0x31, AALOAD = 0x32, BASTORE = 0x54, DADD = 0x63, DSUB = 0x67,
+                DMUL = 0x6b, DDIV = 0x6f, IAND = 0x7e, IOR = 0x80, IXOR = 0x82, IINC = 0x84, DCMPL = 0x97, DCMPG = 0x98,
+                IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d, IFLE = 0x9e, IF_ICMPGE = 0xa2,
+                GOTO = 0xa7, RETURN = 0xb1, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+
+        private final Nodo condition;
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final Map<String, Integer> constantes = new HashMap<>();
+        private int poolCount = 1;
+
+        private ByteArrayOutputStream code;
+        private int depth;
+        private int maxDepth;
+
+        ClassFile(Nodo condition) {
+            this.condition = condition;
+        }
+
+        byte[] toBytes() {
+            try {
+                int thisClass = clase(NOMBRE_CLASE);
+                int superClass = clase("java/lang/Object");
+                int iface = clase("CompiledPredicate");
+                int codeAttr = utf8("Code");
+                int initNombre = utf8("<init>");
+                int initDesc = utf8("()V");
+                int testNombre = utf8("test");
+                int testDesc = utf8(DESCRIPTOR_TEST);
+                byte[] init = metodoInit();
+                int initMax = maxDepth;
+                byte[] test = metodoTest();
+                int testMax = maxDepth;
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(49);
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(iface);
+                out.writeShort(0); // campos
+                out.writeShort(2); // métodos
+                escribirMetodo(out, initNombre, initDesc, codeAttr, initMax, 1, init);
+                escribirMetodo(out, testNombre, testDesc, codeAttr, testMax, 8, test);
+                out.writeShort(0); // atributos
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void escribirMetodo(DataOutputStream out, int nombre, int descriptor, int codeAttr,
+                                           int maxStack, int maxLocals, byte[] codigo) throws IOException {
+            out.writeShort(0x0001); // public
+            out.writeShort(nombre);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttr);
+            out.writeInt(12 + codigo.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(codigo.length);
+            out.write(codigo);
+            out.writeShort(0); // tabla de excepciones
+            out.writeShort(0); // atributos
+        }
+
+        private byte[] metodoInit() throws IOException {
+            iniciarCodigo();
+            op(ALOAD_0, 1);
+            op(INVOKESPECIAL, -1);
+            u2(metodo("java/lang/Object", "<init>", "()V"));
+            op(RETURN, 0);
+            return code.toByteArray();
+        }
+
+        // for (int i = 0; i < n; i++) out[i] = <condición>;
+        private byte[] metodoTest() throws IOException {
+            iniciarCodigo();
+            op(ICONST_0, 1);
+            op(ISTORE, -1);
+            u1(I);
+            int ciclo = code.size();
+            op(ILOAD, 1);
+            u1(I);
+            op(ILOAD, 1);
+            u1(N);
+            int salida = salto(IF_ICMPGE, -2);
+            op(ALOAD, 1);
+            u1(OUT);
+            op(ILOAD, 1);
+            u1(I);
+            emitir(condition);
+            op(BASTORE, -3);
+            op(IINC, 0);
+            u1(I);
+            u1(1);
+            int atras = code.size();
+            op(GOTO, 0);
+            u2(ciclo - atras);
+            marcar(salida);
+            op(RETURN, 0);
+            return code.toByteArray();
+        }
+
+        // Deja en la pila un double (expresiones numéricas), un String o un int 0/1 (booleanas)
+        private void emitir(Nodo n) throws IOException {
+            switch (n.kind) {
+                case 'N':
+                case 'S':
+                    op(ALOAD, 1);
+                    u1(n.kind == 'N' ? NUMBERS : STRINGS);
+                    constante(n.slot);
+                    op(AALOAD, -1);
+                    op(ILOAD, 1);
+                    u1(I);
+                    if (n.kind == 'N') op(DALOAD, 0); // arrayref, index -> double (2 ranuras)
+                    else op(AALOAD, -1);
+                    break;
+                case 'n':
+                    op(ALOAD, 1);
+                    u1(NUM_CONSTS);
+                    constante(n.slot);
+                    op(DALOAD, 0);
+                    break;
+                case 's':
+                    op(ALOAD, 1);
+                    u1(STR_CONSTS);
+                    constante(n.slot);
+                    op(AALOAD, -1);
+                    break;
+                case 'b':
+                    op(n.slot == 1 ? ICONST_1 : ICONST_0, 1);
+                    break;
+                case 'A':
+                    emitir(n.left);
+                    emitir(n.right);
+                    switch (n.operator) {
+                        case '+': op(DADD, -2); break;
+                        case '-': op(DSUB, -2); break;
+                        case '*': op(DMUL, -2); break;
+                        default: op(DDIV, -2); break;
+                    }
+                    break;
+                case 'C':
+                    emitir(n.left);
+                    emitir(n.right);
+                    if (n.left.type == ColumnType.NUMBER) compararNumeros(n.operator);
+                    else compararCadenas(n.operator);
+                    break;
+                case 'L':
+                    emitir(n.left);
+                    emitir(n.right);
+                    op(n.operator == 1 ? IAND : IOR, -1);
+                    break;
+                default: // '!'
+                    emitir(n.left);
+                    op(ICONST_1, 1);
+                    op(IXOR, -1);
+                    break;
+            }
+        }
+
+        // Misma semántica que Java con NaN: dcmpg para < y <=, dcmpl para el resto
+        private void compararNumeros(int operator) throws IOException {
+            int cmp = (operator == CompareExpr.LT || operator == CompareExpr.LE) ? DCMPG : DCMPL;
+            op(cmp, -3);
+            int salto;
+            switch (operator) {
+                case CompareExpr.EQ: salto = IFEQ; break;
+                case CompareExpr.NE: salto = IFNE; break;
+                case CompareExpr.LT: salto = IFLT; break;
+                case CompareExpr.LE: salto = IFLE; break;
+                case CompareExpr.GT: salto = IFGT; break;
+                default: salto = IFGE; break;
+            }
+            int verdadero = salto(salto, -1);
+            op(ICONST_0, 1);
+            int fin = salto(GOTO, 0);
+            depth--; // Las dos ramas dejan un solo valor en la pila
+            marcar(verdadero);
+            op(ICONST_1, 1);
+            marcar(fin);
+        }
+
+        private void compararCadenas(int operator) throws IOException {
+            constante(operator);
+            op(INVOKESTATIC, -2);
+            u2(metodo("PredicateCompiler", "compare", "(Ljava/lang/String;Ljava/lang/String;I)Z"));
+        }
+
+        private void iniciarCodigo() {
+            code = new ByteArrayOutputStream();
+            depth = 0;
+            maxDepth = 0;
+        }
+
+        // Los double ocupan dos ranuras de la pila
+        private void op(int opcode, int efecto) {
+            code.write(opcode);
+            if (opcode == DALOAD) efecto = 0; // arrayref + índice (2) -> double (2)
+            else if (opcode == DADD || opcode == DSUB || opcode == DMUL || opcode == DDIV) efecto = -2;
+            else if (opcode == DCMPL || opcode == DCMPG) efecto = -3;
+            depth += efecto;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private void constante(int valor) {
+            if (valor <= 5) {
+                op(ICONST_0 + valor, 1);
+            } else if (valor < 128) {
+                op(BIPUSH, 1);
+                u1(valor);
+            } else {
+                op(SIPUSH, 1);
+                u2(valor);
+            }
+        }
+
+        // Emite un salto con desplazamiento pendiente y devuelve su posición
+        private int salto(int opcode, int efecto) {
+            int posicion = code.size();
+            op(opcode, efecto);
+            u2(0);
+            return posicion;
+        }
+
+        // Apunta el salto emitido en 'posicion' a la instrucción actual
+        private void marcar(int posicion) {
+            byte[] actual = code.toByteArray();
+            int desplazamiento = actual.length - posicion;
+            actual[posicion + 1] = (byte) (desplazamiento >> 8);
+            actual[posicion + 2] = (byte) desplazamiento;
+            code.reset();
+            code.write(actual, 0, actual.length);
+        }
+
+        private void u1(int valor) {
+            code.write(valor);
+        }
+
+        private void u2(int valor) {
+            code.write(valor >> 8);
+            code.write(valor);
+        }
+
+        private int utf8(String valor) throws IOException {
+            Integer i = constantes.get("U" + valor);
+            if (i != null) return i;
+            poolOut.writeByte(1);
+            poolOut.writeUTF(valor);
+            return registrar("U" + valor);
+        }
+
+        private int clase(String nombre) throws IOException {
+            Integer i = constantes.get("C" + nombre);
+            if (i != null) return i;
+            int n = utf8(nombre);
+            poolOut.writeByte(7);
+            poolOut.writeShort(n);
+            return registrar("C" + nombre);
+        }
+
+        private int metodo(String clase, String nombre, String descriptor) throws IOException {
+            String clave = "M" + clase + "." + nombre + descriptor;
+            Integer i = constantes.get(clave);
+            if (i != null) return i;
+            int c = clase(clase);
+            int nom = utf8(nombre);
+            int desc = utf8(descriptor);
+            poolOut.writeByte(12);
+            poolOut.writeShort(nom);
+            poolOut.writeShort(desc);
+            int nameAndType = registrar("T" + nombre + descriptor);
+            poolOut.writeByte(10);
+            poolOut.writeShort(c);
+            poolOut.writeShort(nameAndType);
+            return registrar(clave);
+        }
+
+        private int registrar(String clave) {
+            int i = poolCount++;
+            constantes.put(clave, i);
+            return i;
+        }
+    }
+}
+
+// Filtro que junta los vectores de columnas del lote y llama al predicado compilado
+class CompiledFilterExpr extends VectorExpr {
+    private final CompiledPredicate predicate;
+    private final ColumnRefExpr[] numColumns;
+    private final ColumnRefExpr[] strColumns;
+    private final double[][] numVectors;
+    private final String[][] strVectors;
+    private final double[] numConsts;
+    private final String[] strConsts;
+
+    CompiledFilterExpr(CompiledPredicate predicate, PredicateCompiler.Generador g) {
+        super(ColumnType.BOOLEAN);
+        this.predicate = predicate;
+        this.numColumns = g.numColumns.toArray(new ColumnRefExpr[0]);
+        this.strColumns = g.strColumns.toArray(new ColumnRefExpr[0]);
+        this.numVectors = new double[numColumns.length][];
+        this.strVectors = new String[strColumns.length][];
+        for (int k = 0; k < numColumns.length; k++) numVectors[k] = numColumns[k].numbers;
+        for (int k = 0; k < strColumns.length; k++) strVectors[k] = strColumns[k].strings;
+        this.numConsts = new double[g.numConsts.size()];
+        for (int k = 0; k < numConsts.length; k++) numConsts[k] = g.numConsts.get(k);
+        this.strConsts = g.strConsts.toArray(new String[0]);
+    }
+
+    @Override
+    void eval(Batch batch) {
+        for (ColumnRefExpr c : numColumns) c.eval(batch);
+        for (ColumnRefExpr c : strColumns) c.eval(batch);
+        predicate.test(numVectors, strVectors, numConsts, strConsts, batch.n, bools);
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Consulta preparada: el texto con parámetros '?' se analiza una sola vez y después se
+// ejecuta o se imprime con distintos valores sin volver a pasar por Scanner y Parser.
+// Los valores se sustituyen como literales en una copia del árbol (ver ParameterBinder).
+// El árbol preparado no se modifica, así que una misma instancia se puede usar desde varios hilos.
+public final class PreparedQuery {
+    private final String sql;
+    private final QueryNode ast;
+    private final int parametros;
+
+    private PreparedQuery(String sql, QueryNode ast, int parametros) {
+        this.sql = sql;
+        this.ast = ast;
+        this.parametros = parametros;
+    }
+
+    // Lanza IllegalArgumentException con los errores léxicos o sintácticos si el texto no es válido
+    public static PreparedQuery prepare(String sql) {
+        Scanner scanner = new Scanner(sql);
+        scanner.setReportarErrores(false);
+        TokenBuffer tokens = scanner.scanCompact();
+        Parser parser = new Parser(tokens.cursor());
+        parser.setReportarErrores(false);
+        QueryNode ast = parser.consulta();
+        List<String> errores = new ArrayList<>(scanner.getErrores());
+        errores.addAll(parser.getErrores());
+        if (ast == null || !errores.isEmpty()) {
+            throw new IllegalArgumentException("La consulta tiene errores: " + String.join("; ", errores));
+        }
+        return new PreparedQuery(sql, ast, parser.getParametros());
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    public int parameterCount() {
+        return parametros;
+    }
+
+    // Árbol preparado, con un ParameterNode en lugar de cada '?'
+    public QueryNode ast() {
+        return ast;
+    }
+
+    // Árbol con los valores sustituidos; admite Number, String, Boolean y null (NULL)
+    public QueryNode bind(Object... valores) {
+        if (valores.length != parametros) {
+            throw new IllegalArgumentException("Se esperaban " + parametros + " parámetros pero se recibieron " + valores.length);
+        }
+        if (parametros == 0) return ast;
+        ASTNode[] literales = new ASTNode[parametros];
+        for (int i = 0; i < parametros; i++) {
+            literales[i] = ParameterBinder.literal(valores[i]);
+        }
+        return (QueryNode) ast.accept(new ParameterBinder(literales));
+    }
+
+    public ResultSet execute(QueryEngine engine, Object... valores) {
+        return engine.execute(bind(valores));
+    }
+
+    public QueryCursor open(QueryEngine engine, Object... valores) {
+        return engine.cursor(bind(valores));
+    }
+
+    public void print(BufferedPrinter printer, Appendable out, Object... valores) {
+        printer.renderTo(bind(valores), out);
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
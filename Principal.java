@@ -1,19 +1,46 @@
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.List;
+import java.io.PrintStream;
+import java.nio.file.Path;
 
 public class Principal {
     static boolean existenErrores = false;
 
-    public static void main(String[] args) throws IOException {
-        ejecutarPrompt();
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            // Modo servicio: java Principal --server [puerto]
+            int puerto = args.length > 1 ? Integer.parseInt(args[1]) : 5433;
+            PhaseMetrics.registrarJmx();
+            try (QueryServer servidor = new QueryServer(puerto)) {
+                System.err.println("Escuchando en 127.0.0.1:" + servidor.port()
+                        + (servidor.usaHilosVirtuales() ? " (hilos virtuales)" : " (hilos de plataforma)"));
+                servidor.serve();
+            }
+        } else if (args.length > 0) {
+            // Modo por lotes: java Principal <script.sql> [hilos]
+            int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            // Salida con buffer propio: el escritor del lote imprime bloques grandes
+            PrintStream salida = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+            BatchProcessor lote = new BatchProcessor(hilos);
+            lote.procesar(Path.of(args[0]), salida);
+            System.err.println(lote.getCache().estadisticas());
+            System.err.println(lote.getEstadisticas().resumen(10));
+            if (PhaseMetrics.enabled()) System.err.println(PhaseMetrics.texto());
+        } else {
+            PhaseMetrics.registrarJmx();
+            ejecutarPrompt();
+        }
     }
 
     private static void ejecutarPrompt() throws IOException {
         System.out.println("Bienvenido al parser SQL interactivo.");
         System.out.println("Escribe tu consulta SQL y presiona Enter.");
-        System.out.println("Para salir, presiona Ctrl + D.\n");
+        System.out.println("Para salir, presiona Ctrl + D.");
+        System.out.println("Comandos: \\stats (métricas por fase), \\metricas on|off.\n");
 
         InputStreamReader input = new InputStreamReader(System.in);
         BufferedReader reader = new BufferedReader(input);
@@ -22,22 +49,48 @@ public class Principal {
             System.out.print(">>> ");
             String linea = reader.readLine();
             if (linea == null) break;
-            ejecutar(linea);
+            if (comando(linea.trim())) continue;
+            try {
+                ejecutar(linea);
+            } catch (Throwable e) {
+                // Una consulta que falla no termina la sesión
+                System.err.println("Error: " + BatchProcessor.describir(e));
+            }
             existenErrores = false;
         }
     }
 
+    // Comandos del REPL que no son consultas; devuelve false si 'linea' no es un comando
+    private static boolean comando(String linea) {
+        switch (linea) {
+            case "\\stats":
+                System.out.println(PhaseMetrics.texto());
+                return true;
+            case "\\metricas on":
+                PhaseMetrics.setHabilitado(true);
+                return true;
+            case "\\metricas off":
+                PhaseMetrics.setHabilitado(false);
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private static void ejecutar(String source) {
         if (source.trim().isEmpty()) {
             System.out.println("La entrada está vacía. Escribe una consulta SQL.");
             return;
         }
 
+        PhaseMetrics.Medicion medicion = PhaseMetrics.iniciar(source.length());
         Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
+        TokenBuffer tokens = scanner.scanCompact();
+        if (medicion != null) medicion.scan(tokens.size() - 1);
 
-        Parser parser = new Parser(tokens);
+        Parser parser = new Parser(tokens.cursor());
         QueryNode ast = parser.consulta();
+        if (medicion != null) medicion.parse(ast, ast == null);
 
         if (ast != null) {
             PrinterQuery printer = new PrinterQuery();
@@ -45,12 +98,13 @@ public class Principal {
         } else {
             System.err.println("Error: La consulta tiene errores de sintaxis.");
         }
+        if (medicion != null) medicion.print();
 
         // Imprimir tokens generados
-        if (!tokens.isEmpty()) {
+        if (tokens.size() > 0) {
             System.out.println("Tokens generados:");
-            for (Token token : tokens) {
-                System.out.println(token);
+            for (int i = 0; i < tokens.size(); i++) {
+                System.out.println(tokens.token(i));
             }
         }
     }
@@ -1,102 +1,101 @@
-public class PrinterQuery {
-    public void visit(QueryNode node) {
-        System.out.println("*Query:");
-        System.out.println("  - Select:");
-        if (node.select != null) {
-            node.select.accept(this);
-        } else {
-            System.out.println("    - null");
-        }
+import java.io.PrintStream;
 
-        System.out.println("  - From:");
-        if (node.from != null) {
-            for (FromNode table : node.from) {
-                table.accept(this);
-            }
-        } else {
-            System.out.println("    - null");
-        }
+// Imprime el árbol en un PrintStream. El texto se arma con BufferedPrinter y se
+// escribe de una sola vez, en lugar de una llamada a println por línea.
+public class PrinterQuery implements ASTVisitor<Void> {
+    private final PrintStream out;
+    private final BufferedPrinter buffer = new BufferedPrinter();
 
-        System.out.println("  - Where:");
-        if (node.where != null) {
-            node.where.accept(this);
-        } else {
-            System.out.println("    - null");
-        }
+    public PrinterQuery() {
+        this(System.out);
     }
 
-    public void visit(SelectNode node) {
-        for (ASTNode field : node.fields) {
-            field.accept(this);
-        }
+    public PrinterQuery(PrintStream out) {
+        this.out = out;
     }
 
-    public void visit(FromNode node) {
-        System.out.println("    - TableExpr<" + node.table + (node.alias != null ? " AS " + node.alias : "") + ">");
+    private Void print(ASTNode node) {
+        buffer.renderTo(node, out);
+        return null;
     }
 
-    public void visit(WhereNode node) {
-        if (node.condition != null) {
-            node.condition.accept(this);
-        } else {
-            System.out.println("    - null");
-        }
+    @Override
+    public Void visit(QueryNode node) {
+        return print(node);
     }
 
-    public void visit(ArithmeticExprNode node) {
-        System.out.println("    - ArithmeticExpr:");
-        System.out.println("      Left:");
-        node.left.accept(this);
-        System.out.println("      Operator: " + node.operator);
-        System.out.println("      Right:");
-        node.right.accept(this);
+    @Override
+    public Void visit(SelectNode node) {
+        return print(node);
     }
 
-    public void visit(StarNode node) {
-        System.out.println("    - *");
+    @Override
+    public Void visit(FromNode node) {
+        return print(node);
     }
 
-    public void visit(FieldNode node) {
-        System.out.println("    - FieldExpr: " + node.field);
+    @Override
+    public Void visit(WhereNode node) {
+        return print(node);
     }
 
-    public void visit(NumberNode node) {
-        System.out.println("    - Number: " + node.number);
+    @Override
+    public Void visit(ArithmeticExprNode node) {
+        return print(node);
     }
 
-    public void visit(StringNode node) {
-        System.out.println("    - String: " + node.value);
+    @Override
+    public Void visit(StarNode node) {
+        return print(node);
     }
 
-    public void visit(FunctionNode node) {
-        System.out.println("    - Function: " + node.name);
-        System.out.println("      Arguments:");
-        for (ASTNode arg : node.arguments) {
-            arg.accept(this);
-        }
+    @Override
+    public Void visit(FieldNode node) {
+        return print(node);
     }
 
-    public void visit(LogicalExprNode node) {
-        System.out.println("    - LogicalExpr: " + node.operator);
-        System.out.println("      Left:");
-        node.left.accept(this);
-        System.out.println("      Right:");
-        node.right.accept(this);
+    @Override
+    public Void visit(NumberNode node) {
+        return print(node);
     }
 
-    public void visit(RelationalExprNode node) {
-        System.out.println("    - RelationalExpr: " + node.operator);
-        System.out.println("      Left:");
-        node.left.accept(this);
-        System.out.println("      Right:");
-        node.right.accept(this);
+    @Override
+    public Void visit(StringNode node) {
+        return print(node);
     }
 
-    public void visit(NotNode node) {
-        System.out.println("    - NotExpr:");
-        System.out.println("      Operand:");
-        node.operand.accept(this);
+    @Override
+    public Void visit(BooleanNode node) {
+        return print(node);
+    }
+
+    @Override
+    public Void visit(NullNode node) {
+        return print(node);
+    }
+
+    @Override
+    public Void visit(ParameterNode node) {
+        return print(node);
+    }
+
+    @Override
+    public Void visit(FunctionNode node) {
+        return print(node);
+    }
+
+    @Override
+    public Void visit(LogicalExprNode node) {
+        return print(node);
     }
-}
 
+    @Override
+    public Void visit(RelationalExprNode node) {
+        return print(node);
+    }
 
+    @Override
+    public Void visit(NotNode node) {
+        return print(node);
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Cursor sobre el resultado de una consulta: lo entrega en lotes (ResultSet) de hasta 'batchRows'
+// filas y solo recorre la relación cuando se pide el siguiente lote, de a Batch.SIZE posiciones.
+// Entre lotes quedan pendientes como mucho batchRows + Batch.SIZE filas, sin importar el tamaño
+// del resultado, y el primer lote llega sin recorrer el resto de la tabla.
+//
+// Un SELECT de agregados tiene que recorrer todo: se calcula al pedir el primer (y único) lote.
+// Con DISTINCT el conjunto de filas vistas tiene su propio presupuesto; las filas que pasaron por
+// disco se procesan al terminar el recorrido y llegan en los últimos lotes.
+public final class QueryCursor implements Iterator<ResultSet>, AutoCloseable {
+    private final QueryEngine engine;
+    private final QueryEngine.Plan plan;
+    private final int batchRows;
+    private final int total;
+    private final List<ArrayColumn> pendientes = new ArrayList<>();
+    private QueryEngine.ProjectionWorker worker;  // null en un SELECT de agregados
+    private Distinct distinct;
+    private int posicion;
+    private ResultSet siguiente;
+    private boolean terminado;
+
+    QueryCursor(QueryEngine engine, QueryEngine.Plan plan, int batchRows, long distinctMemory) {
+        this.engine = engine;
+        this.plan = plan;
+        this.batchRows = batchRows;
+        this.total = plan.empty() ? 0 : plan.relation.size();
+        if (Aggregation.isAggregate(plan.select)) return;
+        List<VectorExpr> projections = new ArrayList<>();
+        QueryEngine.bindProjections(plan.select, plan.binder, projections, pendientes);
+        distinct = plan.select.distinct ? new Distinct(pendientes, distinctMemory) : null;
+        worker = new QueryEngine.ProjectionWorker(plan.relation, plan.binder.sources(), plan.filter, projections, pendientes, distinct);
+    }
+
+    // Posiciones de la relación ya recorridas
+    public int position() {
+        return posicion;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (siguiente == null && !terminado) siguiente = avanzar();
+        return siguiente != null;
+    }
+
+    @Override
+    public ResultSet next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        ResultSet lote = siguiente;
+        siguiente = null;
+        return lote;
+    }
+
+    // Descarta lo que falte; borra los temporales de DISTINCT si los hubo
+    @Override
+    public void close() {
+        terminado = true;
+        siguiente = null;
+        if (distinct != null) distinct.close();
+        distinct = null;
+    }
+
+    private ResultSet avanzar() {
+        if (worker == null) {
+            terminado = true;
+            return engine.aggregate(plan);
+        }
+        while (worker.filas() < batchRows && posicion < total) {
+            int hasta = (int) Math.min((long) posicion + Batch.SIZE, total);
+            worker.scan(posicion, hasta);
+            posicion = hasta;
+        }
+        if (posicion == total && distinct != null) {
+            distinct.finish();
+            distinct.close();
+            distinct = null;
+        }
+        int filas = Math.min(worker.filas(), batchRows);
+        if (filas == 0) {
+            close();
+            return null;
+        }
+        List<ArrayColumn> lote = new ArrayList<>(pendientes.size());
+        for (ArrayColumn buffer : pendientes) {
+            ArrayColumn columna = new ArrayColumn(buffer.name(), buffer.type(), filas);
+            columna.addAll(buffer, 0, filas);
+            buffer.removeFirst(filas);
+            lote.add(columna);
+        }
+        return new ResultSet(lote);
+    }
+}
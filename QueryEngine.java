@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+// Motor de ejecución en memoria: evalúa SELECT ... FROM ... WHERE ... sobre las tablas
+// registradas en un Catalog. JoinPlanner usa los índices de las columnas para las comparaciones
+// con literales del WHERE y, con varias tablas, resuelve las igualdades entre ellas con hash
+// joins. Las filas se procesan por lotes de Batch.SIZE posiciones: primero el filtro
+// que queda del WHERE y luego la proyección sobre las filas que lo cumplen. Con SELECT DISTINCT
+// las filas proyectadas pasan por Distinct antes de llegar al resultado. Un SELECT de agregados
+// (count, sum, avg, min, max) se resuelve con Aggregation.
+//
+// El recorrido se reparte por morsels (MorselScheduler) entre varios trabajadores del
+// ForkJoinPool común; cada uno proyecta en sus propios buffers, que al final se unen en el orden
+// de las posiciones o, con setOrderedResults(false), trabajador por trabajador sin reordenar.
+// DISTINCT usa un solo trabajador para conservar el orden de primera aparición.
+//
+// cursor() y publisher() entregan el resultado por lotes a medida que se piden (QueryCursor).
+public class QueryEngine {
+    // Presupuesto por defecto del conjunto de DISTINCT, en MB (-Dcompiladores.distinct.mb=N)
+    private static final long DISTINCT_MB = Long.getLong("compiladores.distinct.mb", 64);
+
+    private final Catalog catalog;
+    private boolean compilePredicates = true;
+    private long distinctMemory = DISTINCT_MB << 20;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean orderedResults = true;
+    private volatile MorselScheduler.Report lastReport;
+
+    public QueryEngine(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    // Con false el WHERE siempre se evalúa con el intérprete por lotes
+    public void setCompilePredicates(boolean compilePredicates) {
+        this.compilePredicates = compilePredicates;
+    }
+
+    // Bytes que puede ocupar el conjunto de filas vistas de un DISTINCT antes de usar disco
+    // (como mínimo Distinct.MIN_MEMORIA)
+    public void setDistinctMemory(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("La memoria para DISTINCT debe ser positiva.");
+        }
+        this.distinctMemory = bytes;
+    }
+
+    // Trabajadores por consulta, contando el hilo que llama a execute()
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("El paralelismo debe ser positivo.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // Con false las filas quedan agrupadas por trabajador y se evita reordenar al unir
+    public void setOrderedResults(boolean orderedResults) {
+        this.orderedResults = orderedResults;
+    }
+
+    // Métricas por trabajador de la última consulta ejecutada (null si no hubo ninguna)
+    public MorselScheduler.Report lastReport() {
+        return lastReport;
+    }
+
+    public ResultSet execute(QueryNode query) {
+        Plan plan = plan(query);
+        if (Aggregation.isAggregate(plan.select)) return aggregate(plan);
+        SelectNode select = plan.select;
+        ExpressionBinder binder = plan.binder;
+        Relation relation = plan.relation;
+        ASTNode condition = plan.condition;
+        VectorExpr filter = plan.filter;
+
+        List<VectorExpr> projections = new ArrayList<>();
+        List<ArrayColumn> output = new ArrayList<>();
+        bindProjections(select, binder, projections, output);
+        if (plan.empty()) return new ResultSet(output);
+
+        int trabajadores = select.distinct ? 1 : parallelism;
+        // Con un solo trabajador se escribe directamente en el resultado
+        boolean directo = trabajadores == 1 || MorselScheduler.morsels(relation.size()) <= 1;
+        MorselScheduler scheduler = new MorselScheduler(ForkJoinPool.commonPool(), trabajadores);
+        List<ProjectionWorker> workers = new ArrayList<>();
+        try (Distinct distinct = select.distinct ? new Distinct(output, distinctMemory) : null) {
+            lastReport = scheduler.run(relation.size(), w -> {
+                if (directo) return new ProjectionWorker(relation, binder.sources(), filter, projections, output, distinct);
+                // El trabajador 0 corre en este hilo y reutiliza las expresiones ya resueltas
+                List<VectorExpr> propias = w == 0 ? projections : new ArrayList<>();
+                List<ArrayColumn> buffers = new ArrayList<>();
+                if (w == 0) {
+                    for (ArrayColumn c : output) buffers.add(new ArrayColumn(c.name(), c.type()));
+                } else {
+                    bindProjections(select, binder, propias, buffers);
+                }
+                VectorExpr propio = w == 0 || condition == null ? filter : bindFilter(condition, binder, compilePredicates);
+                return new ProjectionWorker(relation, binder.sources(), propio, propias, buffers, null);
+            }, workers);
+            if (distinct != null) distinct.finish();
+        }
+        if (!directo) merge(workers, relation.size(), output);
+        return new ResultSet(output);
+    }
+
+    // Resultado en lotes de Batch.SIZE filas; el recorrido avanza con cada lote pedido
+    public QueryCursor cursor(QueryNode query) {
+        return cursor(query, Batch.SIZE);
+    }
+
+    public QueryCursor cursor(QueryNode query, int batchRows) {
+        if (batchRows <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo.");
+        }
+        return new QueryCursor(this, plan(query), batchRows, distinctMemory);
+    }
+
+    // Cada suscriptor abre su propio cursor al primer request() y recibe un lote por unidad pedida
+    public Flow.Publisher<ResultSet> publisher(QueryNode query) {
+        return publisher(query, Batch.SIZE, ForkJoinPool.commonPool());
+    }
+
+    public Flow.Publisher<ResultSet> publisher(QueryNode query, int batchRows, Executor executor) {
+        if (batchRows <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo.");
+        }
+        return new QueryPublisher(() -> cursor(query, batchRows), executor);
+    }
+
+    // Resuelve el FROM contra el catálogo y reparte el WHERE entre índices, joins y filtro
+    Plan plan(QueryNode query) {
+        List<Table> tables = new ArrayList<>();
+        List<Symbol> aliases = new ArrayList<>();
+        for (FromNode from : query.from) {
+            tables.add(catalog.require(from.table.name));
+            aliases.add(from.alias);
+        }
+        ExpressionBinder binder = new ExpressionBinder(tables, aliases);
+        // El Optimizer no cambia el FROM; con el binder valida lo que descarta de AND/OR
+        query = new Optimizer(binder).optimize(query);
+
+        // Índices y hash joins resuelven parte del WHERE; el resto queda como filtro
+        ASTNode where = (query.where instanceof WhereNode) ? ((WhereNode) query.where).condition : null;
+        JoinPlanner joins = new JoinPlanner(tables, binder, where);
+        Relation relation = joins.relation();
+        ASTNode condition = joins.residual();
+        VectorExpr filter = condition == null ? null : bindFilter(condition, binder, compilePredicates);
+        return new Plan((SelectNode) query.select, binder, relation, condition, filter);
+    }
+
+    ResultSet aggregate(Plan plan) {
+        Aggregation aggregation = new Aggregation(plan.select, plan.binder);
+        MorselScheduler scheduler = new MorselScheduler(ForkJoinPool.commonPool(), parallelism);
+        Relation relation = plan.empty() ? new ScanRelation(0) : plan.relation;
+        ResultSet resultado = aggregation.run(relation, plan.binder, plan.condition, plan.filter, compilePredicates, scheduler);
+        lastReport = aggregation.report();
+        return resultado;
+    }
+
+    // Une los buffers de los trabajadores: por número de morsel o trabajador por trabajador
+    private void merge(List<ProjectionWorker> workers, int total, List<ArrayColumn> output) {
+        if (!orderedResults) {
+            for (ProjectionWorker w : workers) {
+                for (int c = 0; c < output.size(); c++) output.get(c).addAll(w.buffers.get(c), 0, w.filas());
+            }
+            return;
+        }
+        int morsels = MorselScheduler.morsels(total);
+        int[] duenio = new int[morsels];
+        int[] inicio = new int[morsels];
+        int[] fin = new int[morsels];
+        for (int w = 0; w < workers.size(); w++) {
+            ProjectionWorker worker = workers.get(w);
+            for (int k = 0; k < worker.cuenta; k++) {
+                int m = worker.morsels[k];
+                duenio[m] = w;
+                inicio[m] = worker.inicios[k];
+                fin[m] = k + 1 < worker.cuenta ? worker.inicios[k + 1] : worker.filas();
+            }
+        }
+        for (int m = 0; m < morsels; m++) {
+            List<ArrayColumn> buffers = workers.get(duenio[m]).buffers;
+            for (int c = 0; c < output.size(); c++) output.get(c).addAll(buffers.get(c), inicio[m], fin[m] - inicio[m]);
+        }
+    }
+
+    static VectorExpr bindFilter(ASTNode condition, ExpressionBinder binder, boolean compile) {
+        VectorExpr filter = compile ? PredicateCompiler.compile(condition, binder) : binder.bind(condition);
+        if (filter.type != ColumnType.BOOLEAN) {
+            throw new IllegalArgumentException("La condición del WHERE debe ser booleana.");
+        }
+        return filter;
+    }
+
+    static Relation relation(List<Table> tables) {
+        if (tables.size() == 1) return new ScanRelation(tables.get(0).rowCount());
+        int[] sizes = new int[tables.size()];
+        for (int t = 0; t < sizes.length; t++) sizes[t] = tables.get(t).rowCount();
+        return new CrossRelation(sizes);
+    }
+
+    static void bindProjections(SelectNode select, ExpressionBinder binder, List<VectorExpr> projections, List<ArrayColumn> output) {
+        for (ASTNode field : select.fields) {
+            if (field instanceof StarNode) {
+                for (int t = 0; t < binder.sources(); t++) {
+                    for (Column c : binder.table(t).columns()) {
+                        projections.add(new ColumnRefExpr(t, c));
+                        output.add(new ArrayColumn(c.name(), c.type()));
+                    }
+                }
+                continue;
+            }
+            VectorExpr expr = binder.bind(field);
+            if (expr.type == ColumnType.BOOLEAN) {
+                throw new IllegalArgumentException("No se puede proyectar una expresión booleana.");
+            }
+            String name = (field instanceof FieldNode) ? ((FieldNode) field).name() : "expr" + (output.size() + 1);
+            projections.add(expr);
+            output.add(new ArrayColumn(name, expr.type));
+        }
+    }
+
+    // Consulta resuelta: relación a recorrer y lo que queda del WHERE como filtro
+    static final class Plan {
+        final SelectNode select;
+        final ExpressionBinder binder;
+        final Relation relation;
+        final ASTNode condition;  // null si todo el WHERE quedó resuelto por índices y joins
+        final VectorExpr filter;
+
+        Plan(SelectNode select, ExpressionBinder binder, Relation relation, ASTNode condition, VectorExpr filter) {
+            this.select = select;
+            this.binder = binder;
+            this.relation = relation;
+            this.condition = condition;
+            this.filter = filter;
+        }
+
+        // WHERE siempre falso: no hace falta recorrer nada
+        boolean empty() {
+            return filter instanceof ConstantExpr && !filter.bools[0];
+        }
+    }
+
+    // Trabajador de un recorrido con filtro y proyección. Escribe en 'buffers' (o en 'distinct') y
+    // recuerda en qué fila de los buffers empieza cada morsel que procesó.
+    static final class ProjectionWorker implements MorselScheduler.Worker {
+        private final Relation relation;
+        private final VectorExpr filter;
+        private final List<VectorExpr> projections;
+        final List<ArrayColumn> buffers;
+        private final Distinct distinct;
+        private final Batch batch;
+        int[] morsels = new int[8];
+        int[] inicios = new int[8];
+        int cuenta;
+
+        ProjectionWorker(Relation relation, int sources, VectorExpr filter, List<VectorExpr> projections, List<ArrayColumn> buffers,
+                Distinct distinct) {
+            this.relation = relation;
+            this.filter = filter;
+            this.projections = projections;
+            this.buffers = buffers;
+            this.distinct = distinct;
+            this.batch = new Batch(sources);
+        }
+
+        int filas() {
+            return buffers.isEmpty() ? 0 : buffers.get(0).size();
+        }
+
+        @Override
+        public void morsel(int index, int from, int to) {
+            if (cuenta == morsels.length) {
+                morsels = Arrays.copyOf(morsels, cuenta * 2);
+                inicios = Arrays.copyOf(inicios, cuenta * 2);
+            }
+            morsels[cuenta] = index;
+            inicios[cuenta++] = filas();
+            scan(from, to);
+        }
+
+        // Procesa las posiciones [from, to) sin registrar un morsel
+        void scan(int from, int to) {
+            for (int desde = from; desde < to; desde += Batch.SIZE) {
+                int hasta = Math.min(desde + Batch.SIZE, to);
+                relation.rows(desde, hasta, batch.rows);
+                batch.n = hasta - desde;
+                if (filter != null) {
+                    filter.eval(batch);
+                    batch.filter(filter.bools);
+                    if (batch.n == 0) continue;
+                }
+                for (int p = 0; p < projections.size(); p++) {
+                    VectorExpr expr = projections.get(p);
+                    expr.eval(batch);
+                    if (distinct != null) continue;
+                    if (expr.type == ColumnType.NUMBER) buffers.get(p).addAll(expr.numbers, batch.n);
+                    else buffers.get(p).addAll(expr.strings, batch.n);
+                }
+                if (distinct != null) distinct.add(projections, batch.n);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Eventos de JFR para cada fase de una consulta. Solo cuestan algo mientras hay una grabación
+// activa que los habilita, por ejemplo:
+//   java -XX:StartFlightRecording=filename=fases.jfr,settings=profile Principal script.sql
+
+@Name("compiladores.Scan")
+@Label("Escaneo")
+@Category({"Compiladores", "Fases"})
+@Description("Scanner sobre el texto de una consulta")
+@StackTrace(false)
+class ScanEvent extends Event {
+    @Label("Longitud de la entrada")
+    @DataAmount(DataAmount.BYTES)
+    int inputLength;
+
+    @Label("Tokens")
+    int tokens;
+}
+
+@Name("compiladores.Parse")
+@Label("Análisis sintáctico")
+@Category({"Compiladores", "Fases"})
+@Description("Parser sobre los tokens de una consulta")
+@StackTrace(false)
+class ParseEvent extends Event {
+    @Label("Longitud de la entrada")
+    @DataAmount(DataAmount.BYTES)
+    int inputLength;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Nodos del AST")
+    int nodes;
+
+    @Label("Con errores")
+    boolean failed;
+}
+
+@Name("compiladores.Print")
+@Label("Impresión")
+@Category({"Compiladores", "Fases"})
+@Description("Recorrido del AST para imprimirlo")
+@StackTrace(false)
+class PrintEvent extends Event {
+    @Label("Longitud de la entrada")
+    @DataAmount(DataAmount.BYTES)
+    int inputLength;
+
+    @Label("Nodos del AST")
+    int nodes;
+}
@@ -0,0 +1,116 @@
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Publicador (java.util.concurrent.Flow) de los lotes de una consulta. Cada suscripción abre su
+// propio QueryCursor con el primer request() y avanza un lote por cada unidad pedida: un
+// suscriptor lento frena el recorrido en lugar de acumular lotes en memoria.
+//
+// Los lotes se entregan en 'executor', nunca desde request() ni cancel(). Un contador de señales
+// pendientes garantiza que solo un hilo a la vez use el cursor y llame al suscriptor.
+final class QueryPublisher implements Flow.Publisher<ResultSet> {
+    private final Supplier<QueryCursor> abrir;
+    private final Executor executor;
+
+    QueryPublisher(Supplier<QueryCursor> abrir, Executor executor) {
+        this.abrir = abrir;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ResultSet> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new Suscripcion(subscriber));
+    }
+
+    private final class Suscripcion implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ResultSet> subscriber;
+        private final AtomicLong demanda = new AtomicLong();
+        private final AtomicInteger senales = new AtomicInteger();
+        private volatile boolean cancelada;
+        private volatile IllegalArgumentException pedidoInvalido;
+        // Solo se usan dentro de run()
+        private QueryCursor cursor;
+        private boolean terminada;
+
+        Suscripcion(Flow.Subscriber<? super ResultSet> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                pedidoInvalido = new IllegalArgumentException("Se deben pedir lotes en cantidad positiva: " + n);
+            } else {
+                // Suma sin desbordar: Long.MAX_VALUE es demanda ilimitada
+                demanda.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            programar();
+        }
+
+        @Override
+        public void cancel() {
+            cancelada = true;
+            programar();
+        }
+
+        private void programar() {
+            if (senales.getAndIncrement() == 0) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int atendidas = 1;
+            do {
+                entregar();
+                atendidas = senales.addAndGet(-atendidas);
+            } while (atendidas != 0);
+        }
+
+        private void entregar() {
+            while (!terminada) {
+                if (cancelada) {
+                    cerrar();
+                    return;
+                }
+                if (pedidoInvalido != null) {
+                    cerrar();
+                    subscriber.onError(pedidoInvalido);
+                    return;
+                }
+                if (demanda.get() == 0) return;
+                ResultSet lote;
+                try {
+                    if (cursor == null) cursor = abrir.get();
+                    lote = cursor.hasNext() ? cursor.next() : null;
+                } catch (RuntimeException e) {
+                    cerrar();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (lote == null) {
+                    cerrar();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (demanda.get() != Long.MAX_VALUE) demanda.decrementAndGet();
+                try {
+                    subscriber.onNext(lote);
+                } catch (RuntimeException e) {
+                    // Un suscriptor que lanza excepciones se da por cancelado (regla 2.13 de Flow)
+                    cerrar();
+                    return;
+                }
+            }
+        }
+
+        private void cerrar() {
+            terminada = true;
+            if (cursor != null) cursor.close();
+            cursor = null;
+        }
+    }
+}
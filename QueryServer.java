@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Servicio TCP en localhost: cada conexión envía sentencias SQL, una por línea (terminada en '\n'),
+// y por cada una recibe una respuesta con prefijo de longitud:
+//
+//   [4 bytes big-endian: longitud N][N bytes UTF-8]
+//
+// El contenido empieza con "OK" o "ERROR" en su propia línea; después va el árbol impreso por
+// BufferedPrinter o un error por línea. La línea "\stats" devuelve las métricas de PhaseMetrics.
+// El servidor nunca escribe en System.out/System.err por petición.
+//
+// Cada conexión se atiende en su propio hilo con canales NIO bloqueantes. Con Java 21 o posterior
+// se usan hilos virtuales (Executors.newVirtualThreadPerTaskExecutor, buscado por reflexión);
+// en versiones anteriores, un pool de hilos de plataforma que crece según haga falta.
+public class QueryServer implements AutoCloseable {
+    // Límite de una línea de petición; una más larga cierra la conexión tras responder el error
+    private static final int MAX_LINEA = 1 << 20;
+    // Identificadores distintos por tabla de símbolos antes de empezar una nueva
+    static final int MAX_SIMBOLOS = 1 << 16;
+    private static final String NL = "\n";
+
+    private static final ThreadLocal<BufferedPrinter> IMPRESORES = ThreadLocal.withInitial(BufferedPrinter::new);
+    private static final ThreadLocal<Fingerprinter> HUELLAS = ThreadLocal.withInitial(Fingerprinter::new);
+
+    private final ServerSocketChannel servidor;
+    private final ExecutorService conexiones;
+    private final boolean hilosVirtuales;
+    private final ParseCache cache = new ParseCache(4096, true);
+    private final QueryStats estadisticas = new QueryStats();
+    // Los identificadores de los clientes no van a SymbolTable.global(), que nunca libera nada:
+    // se internan en una tabla del servidor que se reemplaza al llegar a MAX_SIMBOLOS. Los árboles
+    // de la caché conservan sus símbolos hasta que se desalojan.
+    private volatile SymbolTable simbolos = new SymbolTable();
+    private final AtomicInteger abiertas = new AtomicInteger();
+    private final LongAdder peticiones = new LongAdder();
+    private volatile boolean cerrado;
+
+    // puerto 0 elige uno libre (ver port())
+    public QueryServer(int puerto) throws IOException {
+        servidor = ServerSocketChannel.open();
+        servidor.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        servidor.bind(new InetSocketAddress("127.0.0.1", puerto), 1024);
+        ExecutorService virtual = ejecutorVirtual();
+        hilosVirtuales = virtual != null;
+        conexiones = virtual != null ? virtual : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "query-conexion");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static ExecutorService ejecutorVirtual() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null; // JDK sin hilos virtuales (o con la vista previa deshabilitada)
+        }
+    }
+
+    public int port() throws IOException {
+        return ((InetSocketAddress) servidor.getLocalAddress()).getPort();
+    }
+
+    public boolean usaHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    public int conexionesAbiertas() {
+        return abiertas.get();
+    }
+
+    public long peticiones() {
+        return peticiones.sum();
+    }
+
+    public ParseCache getCache() {
+        return cache;
+    }
+
+    public QueryStats getEstadisticas() {
+        return estadisticas;
+    }
+
+    // Acepta conexiones hasta que se llame a close(); bloquea al hilo que la invoca
+    public void serve() throws IOException {
+        while (!cerrado) {
+            SocketChannel canal;
+            try {
+                canal = servidor.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            abiertas.incrementAndGet();
+            conexiones.execute(() -> atender(canal));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        cerrado = true;
+        servidor.close();
+        conexiones.shutdownNow();
+    }
+
+    private void atender(SocketChannel canal) {
+        ByteBuffer entrada = ByteBuffer.allocate(8192);
+        ByteBuffer cabecera = ByteBuffer.allocate(4);
+        ByteBuffer[] salida = {cabecera, null};
+        try (canal) {
+            while (true) {
+                int leidos = canal.read(entrada);
+                if (leidos < 0) return;
+                entrada.flip();
+                // Responde cada línea completa del buffer; lo incompleto queda para la próxima lectura
+                int inicio = entrada.position();
+                for (int i = inicio; i < entrada.limit(); i++) {
+                    if (entrada.get(i) != '\n') continue;
+                    String sql = new String(entrada.array(), inicio, i - inicio, StandardCharsets.UTF_8);
+                    responder(canal, salida, procesar(sql));
+                    inicio = i + 1;
+                }
+                entrada.position(inicio);
+                entrada.compact();
+                if (!entrada.hasRemaining()) {
+                    if (entrada.capacity() >= MAX_LINEA) {
+                        responder(canal, salida, "ERROR" + NL + "La línea excede " + MAX_LINEA + " bytes." + NL);
+                        return;
+                    }
+                    ByteBuffer mayor = ByteBuffer.allocate(Math.min(entrada.capacity() * 2, MAX_LINEA));
+                    entrada.flip();
+                    mayor.put(entrada);
+                    entrada = mayor;
+                }
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión a mitad de una respuesta: no hay a quién avisar
+        } finally {
+            abiertas.decrementAndGet();
+        }
+    }
+
+    private static void responder(SocketChannel canal, ByteBuffer[] salida, String respuesta) throws IOException {
+        byte[] datos = respuesta.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer cabecera = salida[0];
+        cabecera.clear();
+        cabecera.putInt(datos.length).flip();
+        salida[1] = ByteBuffer.wrap(datos);
+        while (salida[1].hasRemaining()) canal.write(salida);
+    }
+
+    // Scanner -> Parser -> impresión de una sentencia; devuelve la respuesta completa.
+    // Un fallo inesperado (por ejemplo, un desborde de pila con f(f(...)) muy anidadas) se
+    // responde como ERROR y la conexión sigue atendiendo las líneas siguientes.
+    String procesar(String sql) {
+        try {
+            return analizar(sql);
+        } catch (Throwable e) {
+            return "ERROR" + NL + BatchProcessor.describir(e) + NL;
+        }
+    }
+
+    private String analizar(String sql) {
+        peticiones.increment();
+        if (sql.endsWith("\r")) sql = sql.substring(0, sql.length() - 1);
+        if (sql.equals("\\stats")) return "OK" + NL + PhaseMetrics.texto() + NL;
+        StringBuilder out = new StringBuilder(512);
+        BufferedPrinter printer = IMPRESORES.get();
+
+        QueryNode ast = cache.get(sql);
+        if (ast != null) {
+            Fingerprinter huella = HUELLAS.get();
+            estadisticas.record(huella.fingerprint(ast), huella.text(), 0, 0, 0);
+            out.append("OK").append(NL);
+            printer.renderTo(ast, out);
+            return out.toString();
+        }
+
+        PhaseMetrics.Medicion medicion = PhaseMetrics.iniciar(sql.length());
+        long inicio = System.nanoTime();
+        SymbolTable tabla = simbolos();
+        Scanner scanner = new Scanner(sql, tabla);
+        scanner.setReportarErrores(false);
+        TokenBuffer tokens = scanner.scanCompact();
+        long escaneo = System.nanoTime();
+        if (medicion != null) medicion.scan(tokens.size() - 1);
+        Parser parser = new Parser(tokens.cursor(), tabla);
+        parser.setReportarErrores(false);
+        ast = parser.consulta();
+        long analisis = System.nanoTime();
+        boolean valida = ast != null && !parser.hayErrores() && scanner.getErrores().isEmpty();
+        if (medicion != null) medicion.parse(ast, !valida);
+
+        if (valida) {
+            cache.put(sql, ast);
+            Fingerprinter huella = HUELLAS.get();
+            estadisticas.record(huella.fingerprint(ast), huella.text(), escaneo - inicio, analisis - escaneo, tokens.size() - 1);
+            out.append("OK").append(NL);
+            printer.renderTo(ast, out);
+        } else {
+            out.append("ERROR").append(NL);
+            for (String error : scanner.getErrores()) out.append(error).append(NL);
+            for (String error : parser.getErrores()) out.append(error).append(NL);
+        }
+        if (medicion != null) medicion.print();
+        return out.toString();
+    }
+
+    // Una sentencia usa una sola tabla de principio a fin
+    private SymbolTable simbolos() {
+        SymbolTable tabla = simbolos;
+        if (tabla.size() < MAX_SIMBOLOS) return tabla;
+        synchronized (this) {
+            if (simbolos == tabla) simbolos = new SymbolTable();
+            return simbolos;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Estadísticas por forma de consulta, indexadas por la huella de Fingerprinter.
+// Cada forma guarda su texto canónico una sola vez y contadores LongAdder (llamadas, tiempo de
+// escaneo y de análisis, tokens), así que varios hilos registran sin competir por un candado.
+// Cuando se alcanza la capacidad, las formas nuevas solo se suman en el contador de descartadas.
+public class QueryStats {
+    private final ConcurrentHashMap<Long, Entrada> formas = new ConcurrentHashMap<>();
+    private final int capacidad;
+    private final LongAdder descartadas = new LongAdder();
+
+    public QueryStats() {
+        this(10_000);
+    }
+
+    public QueryStats(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva.");
+        }
+        this.capacidad = capacidad;
+    }
+
+    // 'texto' solo se copia la primera vez que aparece la huella.
+    // Los tiempos son 0 cuando la consulta no se escaneó ni analizó (por ejemplo, si vino de la caché).
+    public void record(long huella, CharSequence texto, long nanosScan, long nanosParse, int tokens) {
+        Entrada e = formas.get(huella);
+        if (e == null) {
+            if (formas.size() >= capacidad) {
+                descartadas.increment();
+                return;
+            }
+            e = formas.computeIfAbsent(huella, h -> new Entrada(h, texto.toString()));
+        }
+        e.llamadas.increment();
+        if (nanosScan != 0) e.nanosScan.add(nanosScan);
+        if (nanosParse != 0) e.nanosParse.add(nanosParse);
+        if (tokens != 0) e.tokens.add(tokens);
+    }
+
+    public int size() {
+        return formas.size();
+    }
+
+    // Llamadas que no se registraron porque la tabla estaba llena
+    public long descartadas() {
+        return descartadas.sum();
+    }
+
+    public void clear() {
+        formas.clear();
+        descartadas.reset();
+    }
+
+    // Copia de los contadores, ordenada por número de llamadas (de mayor a menor).
+    // No es atómica respecto a los registros concurrentes, pero cada valor es consistente.
+    public List<Snapshot> snapshot() {
+        List<Snapshot> lista = new ArrayList<>(formas.size());
+        for (Entrada e : formas.values()) {
+            lista.add(new Snapshot(e.huella, e.texto, e.llamadas.sum(), e.nanosScan.sum(), e.nanosParse.sum(), e.tokens.sum()));
+        }
+        lista.sort((a, b) -> Long.compare(b.llamadas, a.llamadas));
+        return Collections.unmodifiableList(lista);
+    }
+
+    // Tabla con las 'limite' formas más frecuentes
+    public String resumen(int limite) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %10s %12s %12s %10s  %s%n", "huella", "llamadas", "scan µs", "parse µs", "tokens", "forma"));
+        List<Snapshot> lista = snapshot();
+        for (int i = 0; i < lista.size() && i < limite; i++) {
+            Snapshot s = lista.get(i);
+            sb.append(String.format("%016x %10d %12.1f %12.1f %10d  %s%n", s.huella, s.llamadas,
+                    s.nanosScan / 1e3, s.nanosParse / 1e3, s.tokens, s.texto));
+        }
+        sb.append(lista.size()).append(" formas distintas");
+        if (descartadas() > 0) sb.append(", ").append(descartadas()).append(" llamadas sin registrar");
+        return sb.toString();
+    }
+
+    private static final class Entrada {
+        final long huella;
+        final String texto;
+        final LongAdder llamadas = new LongAdder();
+        final LongAdder nanosScan = new LongAdder();
+        final LongAdder nanosParse = new LongAdder();
+        final LongAdder tokens = new LongAdder();
+
+        Entrada(long huella, String texto) {
+            this.huella = huella;
+            this.texto = texto;
+        }
+    }
+
+    // Valores de una forma en el momento de snapshot()
+    public static final class Snapshot {
+        public final long huella;
+        public final String texto;
+        public final long llamadas;
+        public final long nanosScan;
+        public final long nanosParse;
+        public final long tokens;
+
+        Snapshot(long huella, String texto, long llamadas, long nanosScan, long nanosParse, long tokens) {
+            this.huella = huella;
+            this.texto = texto;
+            this.llamadas = llamadas;
+            this.nanosScan = nanosScan;
+            this.nanosParse = nanosParse;
+            this.tokens = tokens;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x x%d %s", huella, llamadas, texto);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+// Conjunto de filas a recorrer: cada posición corresponde a una fila de cada tabla del FROM.
+// rows() llena, para cada tabla, el número de fila que corresponde a cada posición.
+interface Relation {
+    int size();
+
+    void rows(int from, int to, int[][] dst);
+}
+
+// Recorrido completo de una sola tabla
+class ScanRelation implements Relation {
+    private final int rowCount;
+
+    ScanRelation(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public void rows(int from, int to, int[][] dst) {
+        int[] rows = dst[0];
+        for (int i = from; i < to; i++) rows[i - from] = i;
+    }
+}
+
+// Producto cartesiano de varias tablas; la última tabla varía más rápido
+class CrossRelation implements Relation {
+    private final int[] sizes;
+    private final int size;
+
+    CrossRelation(int[] sizes) {
+        this.sizes = sizes;
+        long total = 1;
+        for (int s : sizes) {
+            total *= s;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("El producto cartesiano del FROM es demasiado grande.");
+            }
+        }
+        this.size = (int) total;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void rows(int from, int to, int[][] dst) {
+        for (int i = from; i < to; i++) {
+            int resto = i;
+            for (int t = sizes.length - 1; t >= 0; t--) {
+                dst[t][i - from] = resto % sizes[t];
+                resto /= sizes[t];
+            }
+        }
+    }
+}
+
+// Resultado de los hash joins del JoinPlanner: varias partes independientes (grupos de tablas
+// unidas por igualdades, o tablas sueltas) combinadas como producto cartesiano.
+// Cada parte guarda, por cada tabla que cubre, el número de fila de cada una de sus posiciones;
+// una tabla suelta no guarda nada (la posición es la fila). La última parte varía más rápido.
+class JoinedRelation implements Relation {
+    private final int[][] sources;  // Tablas del FROM que cubre cada parte
+    private final int[][][] rows;   // rows[parte][k] = filas de sources[parte][k]; null si es tabla suelta
+    private final int[] sizes;
+    private final int size;
+
+    JoinedRelation(int[][] sources, int[][][] rows, int[] sizes) {
+        this.sources = sources;
+        this.rows = rows;
+        this.sizes = sizes;
+        long total = 1;
+        for (int s : sizes) {
+            total *= s;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("El producto cartesiano del FROM es demasiado grande.");
+            }
+        }
+        this.size = (int) total;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void rows(int from, int to, int[][] dst) {
+        if (sizes.length == 1 && rows[0] != null) {
+            // Un solo grupo unido: las filas se copian en bloque
+            for (int k = 0; k < sources[0].length; k++) {
+                System.arraycopy(rows[0][k], from, dst[sources[0][k]], 0, to - from);
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            int resto = i;
+            for (int p = sizes.length - 1; p >= 0; p--) {
+                int pos = resto % sizes[p];
+                resto /= sizes[p];
+                for (int k = 0; k < sources[p].length; k++) {
+                    dst[sources[p][k]][i - from] = rows[p] == null ? pos : rows[p][k][pos];
+                }
+            }
+        }
+    }
+}
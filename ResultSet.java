@@ -0,0 +1,44 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Resultado de una consulta, guardado columna por columna
+public class ResultSet {
+    private final List<ArrayColumn> columns;
+
+    public ResultSet(List<ArrayColumn> columns) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    }
+
+    public List<ArrayColumn> columns() {
+        return columns;
+    }
+
+    public ArrayColumn column(int index) {
+        return columns.get(index);
+    }
+
+    public int rowCount() {
+        return columns.isEmpty() ? 0 : columns.get(0).size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < columns.size(); c++) {
+            if (c > 0) sb.append(" | ");
+            sb.append(columns.get(c).name());
+        }
+        sb.append('\n');
+        int filas = rowCount();
+        for (int r = 0; r < filas; r++) {
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) sb.append(" | ");
+                sb.append(columns.get(c).getString(r));
+            }
+            sb.append('\n');
+        }
+        sb.append("(").append(filas).append(filas == 1 ? " fila)" : " filas)");
+        return sb.toString();
+    }
+}
@@ -1,43 +1,103 @@
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class Scanner {
+public class Scanner implements TokenSource {
     private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+    private final SymbolTable simbolos;
+    private Token siguiente; // Token ya escaneado pero aún no consumido
+    private TokenBuffer buffer; // Solo en modo compacto
+    private final List<String> errores = new ArrayList<>();
+    private boolean reportarErrores = true;
     private int start = 0;
     private int current = 0;
     private int line = 1;
 
-    private static final Map<String, TipoToken> palabrasReservadas;
+    // Texto en minúsculas de cada palabra reservada, indexado por ordinal
+    private static final String[] textoReservado = new String[TipoToken.values().length];
     static {
-        palabrasReservadas = new HashMap<>();
-        palabrasReservadas.put("and", TipoToken.AND);
-        palabrasReservadas.put("or", TipoToken.OR);
-        palabrasReservadas.put("select", TipoToken.SELECT);
-        palabrasReservadas.put("from", TipoToken.FROM);
-        palabrasReservadas.put("where", TipoToken.WHERE);
-        palabrasReservadas.put("distinct", TipoToken.DISTINCT);
-        palabrasReservadas.put("false", TipoToken.FALSE);
-        palabrasReservadas.put("is", TipoToken.IS);
-        palabrasReservadas.put("not", TipoToken.NOT);
-        palabrasReservadas.put("null", TipoToken.NULL);
-        palabrasReservadas.put("true", TipoToken.TRUE);
+        TipoToken[] reservadas = {
+            TipoToken.AND, TipoToken.DISTINCT, TipoToken.FALSE, TipoToken.FROM, TipoToken.IS,
+            TipoToken.NOT, TipoToken.NULL, TipoToken.OR, TipoToken.SELECT, TipoToken.TRUE, TipoToken.WHERE
+        };
+        for (TipoToken t : reservadas) {
+            textoReservado[t.ordinal()] = t.name().toLowerCase();
+        }
     }
 
     public Scanner(String source) {
+        this(source, SymbolTable.global());
+    }
+
+    // Los identificadores se internan en 'simbolos'; tokens iguales comparten el mismo String
+    public Scanner(String source, SymbolTable simbolos) {
         this.source = source;
+        this.simbolos = simbolos;
+    }
+
+    // Empieza a escanear en una posición intermedia; debe ser un punto entre tokens
+    // (fuera de cadenas y comentarios) y 'linea' la línea que le corresponde
+    Scanner(String source, int inicio, int linea) {
+        this(source);
+        this.current = inicio;
+        this.line = linea;
     }
 
     public List<Token> scanTokens() {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while (token.tipo != TipoToken.EOF);
+        return tokens;
+    }
+
+    // Modo compacto: registra tipo y posiciones sin crear Token ni subcadenas
+    public TokenBuffer scanCompact() {
+        buffer = new TokenBuffer(source, source.length() / 4 + 1);
         while (!isAtEnd()) {
             start = current;
             scanToken();
         }
-        // Agrega el token EOF al final, independientemente de si hay comentarios o espacios
-        tokens.add(new Token(TipoToken.EOF, "", null, line));
-        return tokens;
+        buffer.add(TipoToken.EOF, current, current, line);
+        return buffer;
+    }
+
+    // Modo compacto paso a paso: agrega a 'destino' el siguiente token (sin EOF).
+    // Devuelve false si se llegó al final sin encontrar más tokens.
+    boolean scanNextCompact(TokenBuffer destino) {
+        buffer = destino;
+        int antes = destino.size();
+        while (destino.size() == antes && !isAtEnd()) {
+            start = current;
+            scanToken();
+        }
+        return destino.size() > antes;
+    }
+
+    int currentLine() {
+        return line;
+    }
+
+    // Modo bajo demanda: escanea solo lo necesario para producir el siguiente token
+    @Override
+    public Token nextToken() {
+        Token token = peekToken();
+        siguiente = null;
+        return token;
+    }
+
+    @Override
+    public Token peekToken() {
+        while (siguiente == null && !isAtEnd()) {
+            start = current;
+            scanToken(); // Puede no producir token (espacios, comentarios, errores)
+        }
+        if (siguiente == null) {
+            // Agrega el token EOF al final, independientemente de si hay comentarios o espacios
+            siguiente = new Token(TipoToken.EOF, "", null, line);
+        }
+        return siguiente;
     }
 
     private void scanToken() {
@@ -63,6 +123,7 @@ public class Scanner {
                 break;
             case ',': addToken(TipoToken.COMA); break;
             case ';': addToken(TipoToken.SEMICOLON); break;
+            case '?': addToken(TipoToken.PARAMETRO); break;
             case '.': addToken(TipoToken.DOT); break;
             case '=': addToken(TipoToken.EQUAL); break;
             case '!':
@@ -88,7 +149,7 @@ public class Scanner {
                 } else if (isAlpha(c)) {
                     identifier();
                 } else {
-                    System.out.println("Error en la línea " + line + ": carácter inesperado.");
+                    reportar("Error en la línea " + line + ": carácter inesperado.");
                 }
                 break;
         }
@@ -114,7 +175,7 @@ public class Scanner {
         }
         // Si llega aquí, significa que el comentario no tiene cierre '*/'
         // Emitimos una advertencia en lugar de detener el análisis
-        System.out.println("Advertencia: Comentario de varias líneas sin cerrar al final de la entrada.");
+        reportar("Advertencia: Comentario de varias líneas sin cerrar al final de la entrada.");
     }
     
 
@@ -132,15 +193,56 @@ public class Scanner {
             while (isDigit(peek())) advance();
         }
 
-        String text = source.substring(start, current);
-        addToken(TipoToken.NUMERO, Double.parseDouble(text));
+        addToken(TipoToken.NUMERO);
     }
 
     private void identifier() {
         while (isAlphaNumeric(peek())) advance();
-        String text = source.substring(start, current);
-        TipoToken type = palabrasReservadas.getOrDefault(text, TipoToken.IDENTIFICADOR);
-        addToken(type);
+        addToken(palabraReservada(source, start, current));
+    }
+
+    // Reconoce las palabras reservadas directamente sobre el texto fuente, sin crear
+    // subcadenas y sin distinguir mayúsculas de minúsculas (SELECT, Select, select)
+    static TipoToken palabraReservada(String source, int inicio, int fin) {
+        char c = (char) (source.charAt(inicio) | 0x20);
+        switch (fin - inicio) {
+            case 2:
+                if (c == 'o') return reservada(source, inicio, TipoToken.OR);
+                if (c == 'i') return reservada(source, inicio, TipoToken.IS);
+                break;
+            case 3:
+                if (c == 'a') return reservada(source, inicio, TipoToken.AND);
+                if (c == 'n') return reservada(source, inicio, TipoToken.NOT);
+                break;
+            case 4:
+                if (c == 'f') return reservada(source, inicio, TipoToken.FROM);
+                if (c == 'n') return reservada(source, inicio, TipoToken.NULL);
+                if (c == 't') return reservada(source, inicio, TipoToken.TRUE);
+                break;
+            case 5:
+                if (c == 'w') return reservada(source, inicio, TipoToken.WHERE);
+                if (c == 'f') return reservada(source, inicio, TipoToken.FALSE);
+                break;
+            case 6:
+                if (c == 's') return reservada(source, inicio, TipoToken.SELECT);
+                break;
+            case 8:
+                if (c == 'd') return reservada(source, inicio, TipoToken.DISTINCT);
+                break;
+            default:
+                break;
+        }
+        return TipoToken.IDENTIFICADOR;
+    }
+
+    // Compara ignorando mayúsculas; los identificadores solo tienen letras ASCII, dígitos y '_',
+    // y ninguno de esos caracteres se confunde con una letra minúscula al activar el bit 0x20
+    private static TipoToken reservada(String source, int inicio, TipoToken tipo) {
+        String palabra = textoReservado[tipo.ordinal()];
+        for (int i = 1; i < palabra.length(); i++) {
+            if ((source.charAt(inicio + i) | 0x20) != palabra.charAt(i)) return TipoToken.IDENTIFICADOR;
+        }
+        return tipo;
     }
 
     private void string() {
@@ -149,12 +251,25 @@ public class Scanner {
             advance();
         }
         if (isAtEnd()) {
-            System.out.println("Error: cadena sin cerrar en la línea " + line);
+            reportar("Error: cadena sin cerrar en la línea " + line);
             return;
         }
         advance();
-        String value = source.substring(start + 1, current - 1);
-        addToken(TipoToken.CADENA, value);
+        addToken(TipoToken.CADENA);
+    }
+
+    // Por defecto los mensajes se imprimen; en modo silencioso solo se acumulan
+    public void setReportarErrores(boolean reportarErrores) {
+        this.reportarErrores = reportarErrores;
+    }
+
+    public List<String> getErrores() {
+        return errores;
+    }
+
+    private void reportar(String mensaje) {
+        errores.add(mensaje);
+        if (reportarErrores) System.out.println(mensaje);
     }
 
     private boolean match(char expected) {
@@ -192,12 +307,28 @@ public class Scanner {
     }
 
     private void addToken(TipoToken type) {
-        addToken(type, null);
+        if (buffer != null) {
+            buffer.add(type, start, current, line);
+            return;
+        }
+        String text = lexema(type);
+        siguiente = new Token(type, text, literal(type, text), line);
+    }
+
+    // Las palabras reservadas escritas en minúsculas comparten el texto canónico y los
+    // identificadores el nombre del símbolo, sin crear subcadenas para los ya conocidos
+    private String lexema(TipoToken type) {
+        if (type == TipoToken.IDENTIFICADOR) return simbolos.intern(source, start, current).name;
+        String reservada = textoReservado[type.ordinal()];
+        if (reservada != null && source.startsWith(reservada, start)) return reservada;
+        return source.substring(start, current);
     }
 
-    private void addToken(TipoToken type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+    // Los literales solo se calculan cuando se crea un objeto Token
+    private Object literal(TipoToken type, String text) {
+        if (type == TipoToken.NUMERO) return Double.parseDouble(text);
+        if (type == TipoToken.CADENA) return text.substring(1, text.length() - 1);
+        return null;
     }
 }
 
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+// Índice ordenado de una columna para filtros por rango (<, <=, >, >=, y también =).
+// Guarda las filas ordenadas por valor junto con los valores en ese mismo orden; un rango se
+// resuelve con dos búsquedas binarias y las filas del intervalo se devuelven en orden creciente,
+// igual que en un recorrido completo. Los NaN y las cadenas nulas no se indexan: ninguna
+// comparación las acepta (ver CompareExpr), y -0.0 se guarda como 0.0.
+final class SortedIndex {
+    private final int[] filas;
+    private final double[] numeros;  // numeros[i] es el valor de filas[i] (columnas NUMBER)
+    private final String[] cadenas;  // cadenas[i] es el valor de filas[i] (columnas STRING)
+
+    private SortedIndex(int[] filas, double[] numeros, String[] cadenas) {
+        this.filas = filas;
+        this.numeros = numeros;
+        this.cadenas = cadenas;
+    }
+
+    private interface Orden {
+        int comparar(int filaA, int filaB);
+    }
+
+    static SortedIndex build(Column column) {
+        int total = column.size();
+        int[] filas = new int[total];
+        int n = 0;
+        if (column.type() == ColumnType.NUMBER) {
+            double[] valores = new double[total];
+            for (int fila = 0; fila < total; fila++) {
+                double v = column.getNumber(fila);
+                valores[fila] = v == 0 ? 0.0 : v;
+                if (v == v) filas[n++] = fila;
+            }
+            filas = ordenar(filas, n, (a, b) -> Double.compare(valores[a], valores[b]));
+            double[] ordenados = new double[n];
+            for (int i = 0; i < n; i++) ordenados[i] = valores[filas[i]];
+            return new SortedIndex(filas, ordenados, null);
+        }
+        String[] valores = new String[total];
+        for (int fila = 0; fila < total; fila++) {
+            valores[fila] = column.getString(fila);
+            if (valores[fila] != null) filas[n++] = fila;
+        }
+        filas = ordenar(filas, n, (a, b) -> valores[a].compareTo(valores[b]));
+        String[] ordenados = new String[n];
+        for (int i = 0; i < n; i++) ordenados[i] = valores[filas[i]];
+        return new SortedIndex(filas, null, ordenados);
+    }
+
+    // Cantidad de valores indexados
+    int size() {
+        return filas.length;
+    }
+
+    // Primera posición cuyo valor es mayor que v (con saltarIguales) o mayor o igual que v.
+    //   columna >= v  ->  [position(v, false), size())     columna <= v  ->  [0, position(v, true))
+    //   columna >  v  ->  [position(v, true),  size())     columna <  v  ->  [0, position(v, false))
+    int position(double v, boolean saltarIguales) {
+        int lo = 0;
+        int hi = numeros.length;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            double k = numeros[m];
+            if (k < v || (saltarIguales && k == v)) lo = m + 1;
+            else hi = m;
+        }
+        return lo;
+    }
+
+    int position(String v, boolean saltarIguales) {
+        int lo = 0;
+        int hi = cadenas.length;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            int c = cadenas[m].compareTo(v);
+            if (c < 0 || (saltarIguales && c == 0)) lo = m + 1;
+            else hi = m;
+        }
+        return lo;
+    }
+
+    // Filas de las posiciones [desde, hasta), en orden creciente de fila
+    int[] rows(int desde, int hasta) {
+        if (desde >= hasta) return new int[0];
+        int[] resultado = Arrays.copyOfRange(filas, desde, hasta);
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    // Ordenamiento por mezcla de abajo hacia arriba, estable, sobre los primeros n elementos
+    private static int[] ordenar(int[] filas, int n, Orden orden) {
+        int[] a = Arrays.copyOf(filas, n);
+        int[] b = new int[n];
+        for (int ancho = 1; ancho < n; ancho *= 2) {
+            for (int inicio = 0; inicio < n; inicio += 2 * ancho) {
+                int medio = Math.min(inicio + ancho, n);
+                int fin = Math.min(inicio + 2 * ancho, n);
+                int x = inicio;
+                int y = medio;
+                int k = inicio;
+                while (x < medio && y < fin) b[k++] = orden.comparar(a[y], a[x]) < 0 ? a[y++] : a[x++];
+                while (x < medio) b[k++] = a[x++];
+                while (y < fin) b[k++] = a[y++];
+            }
+            int[] t = a;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,104 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Divide un script (bytes UTF-8) en sentencias terminadas en ';'.
+// Respeta cadenas "..." y comentarios -- y /* */ igual que el Scanner, de modo que
+// un ';' dentro de ellos no corta la sentencia. Todos los delimitadores son ASCII,
+// así que se puede trabajar directamente sobre los bytes.
+public class StatementSplitter {
+    private final ByteBuffer datos;
+    private int pos = 0;
+    private int linea = 1;
+    private int inicio;
+    private int lineaInicio;
+
+    public StatementSplitter(ByteBuffer datos) {
+        this.datos = datos;
+    }
+
+    // Avanza hasta la siguiente sentencia; devuelve false si solo quedan espacios o comentarios
+    public boolean next() {
+        saltarVacio();
+        if (pos >= datos.limit()) return false;
+        inicio = pos;
+        lineaInicio = linea;
+        while (pos < datos.limit()) {
+            byte c = datos.get(pos++);
+            switch (c) {
+                case ';': return true;
+                case '\n': linea++; break;
+                case '"': saltarCadena(); break;
+                case '-':
+                    if (siguienteEs('-')) saltarComentarioLinea();
+                    break;
+                case '/':
+                    if (siguienteEs('*')) saltarComentarioBloque();
+                    break;
+                default: break;
+            }
+        }
+        return true; // Última sentencia sin ';'
+    }
+
+    // Texto de la sentencia actual (incluye el ';' final si lo hay)
+    public String texto() {
+        byte[] bytes = new byte[pos - inicio];
+        datos.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Línea del script donde empieza la sentencia actual
+    public int linea() {
+        return lineaInicio;
+    }
+
+    // Salta espacios y comentarios entre sentencias para no producir sentencias vacías
+    private void saltarVacio() {
+        while (pos < datos.limit()) {
+            byte c = datos.get(pos);
+            if (c == '\n') {
+                linea++;
+                pos++;
+            } else if (c == ' ' || c == '\r' || c == '\t') {
+                pos++;
+            } else if (c == '-' && pos + 1 < datos.limit() && datos.get(pos + 1) == '-') {
+                pos += 2;
+                saltarComentarioLinea();
+            } else if (c == '/' && pos + 1 < datos.limit() && datos.get(pos + 1) == '*') {
+                pos += 2;
+                saltarComentarioBloque();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean siguienteEs(char esperado) {
+        if (pos >= datos.limit() || datos.get(pos) != esperado) return false;
+        pos++;
+        return true;
+    }
+
+    private void saltarCadena() {
+        while (pos < datos.limit()) {
+            byte c = datos.get(pos++);
+            if (c == '"') return;
+            if (c == '\n') linea++;
+        }
+    }
+
+    private void saltarComentarioLinea() {
+        while (pos < datos.limit() && datos.get(pos) != '\n') pos++;
+    }
+
+    private void saltarComentarioBloque() {
+        while (pos < datos.limit()) {
+            byte c = datos.get(pos++);
+            if (c == '*' && pos < datos.limit() && datos.get(pos) == '/') {
+                pos++;
+                return;
+            }
+            if (c == '\n') linea++;
+        }
+    }
+}
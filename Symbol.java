@@ -0,0 +1,16 @@
+// Nombre internado por SymbolTable: dos símbolos de la misma tabla son iguales solo si son
+// la misma instancia, y 'id' es un índice denso que sirve para indexar arreglos
+public final class Symbol {
+    public final int id;
+    public final String name;
+
+    Symbol(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.Arrays;
+
+// Tabla de símbolos compartida por Scanner y Parser: cada identificador distinto se guarda
+// una sola vez. La búsqueda recibe un rango del texto fuente, así que un identificador ya
+// conocido no crea ninguna subcadena.
+//
+// Las lecturas no toman el candado: se lee la tabla publicada (volatile) y, si el símbolo
+// no aparece, se repite la búsqueda bajo el candado antes de insertar.
+public final class SymbolTable {
+    private static final SymbolTable GLOBAL = new SymbolTable();
+
+    private volatile Symbol[] tabla = new Symbol[256]; // Direccionamiento abierto, sondeo lineal
+    private volatile Symbol[] porId = new Symbol[64];
+    private int size;
+
+    // Tabla usada por defecto en todo el proceso. No libera símbolos, así que la entrada de
+    // clientes de larga duración (QueryServer) se interna en tablas propias y acotadas.
+    public static SymbolTable global() {
+        return GLOBAL;
+    }
+
+    public Symbol intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    public Symbol intern(CharSequence texto, int inicio, int fin) {
+        int hash = hash(texto, inicio, fin);
+        Symbol s = buscar(tabla, hash, texto, inicio, fin);
+        if (s != null) return s;
+        synchronized (this) {
+            s = buscar(tabla, hash, texto, inicio, fin);
+            if (s != null) return s;
+            return insertar(hash, texto.subSequence(inicio, fin).toString());
+        }
+    }
+
+    // Devuelve null si el nombre nunca se internó
+    public Symbol lookup(String name) {
+        return buscar(tabla, hash(name, 0, name.length()), name, 0, name.length());
+    }
+
+    public Symbol get(int id) {
+        Symbol[] ids = porId;
+        Symbol s = id >= 0 && id < ids.length ? ids[id] : null;
+        if (s == null) throw new IndexOutOfBoundsException("Símbolo inexistente: " + id);
+        return s;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static Symbol buscar(Symbol[] t, int hash, CharSequence texto, int inicio, int fin) {
+        int mascara = t.length - 1;
+        for (int i = hash & mascara; ; i = (i + 1) & mascara) {
+            Symbol s = t[i];
+            if (s == null) return null;
+            if (iguales(s.name, texto, inicio, fin)) return s;
+        }
+    }
+
+    private Symbol insertar(int hash, String name) {
+        Symbol s = new Symbol(size, name);
+        Symbol[] ids = porId;
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        ids[size] = s;
+        porId = ids;
+        size++;
+        Symbol[] t = tabla;
+        if (size * 2 > t.length) {
+            t = new Symbol[t.length * 2];
+            for (int i = 0; i < size - 1; i++) colocar(t, ids[i]);
+        }
+        colocar(t, s);
+        tabla = t; // Publica el símbolo nuevo a los lectores sin candado
+        return s;
+    }
+
+    private static void colocar(Symbol[] t, Symbol s) {
+        int mascara = t.length - 1;
+        int i = hash(s.name, 0, s.name.length()) & mascara;
+        while (t[i] != null) i = (i + 1) & mascara;
+        t[i] = s;
+    }
+
+    private static boolean iguales(String name, CharSequence texto, int inicio, int fin) {
+        if (name.length() != fin - inicio) return false;
+        if (name == texto && inicio == 0) return true;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != texto.charAt(inicio + i)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence texto, int inicio, int fin) {
+        int h = 0;
+        for (int i = inicio; i < fin; i++) h = 31 * h + texto.charAt(i);
+        return h ^ (h >>> 16);
+    }
+}
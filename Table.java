@@ -0,0 +1,91 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Tabla almacenada columna por columna
+public class Table {
+    final String name;
+    private final Symbol symbol;
+    private final Symbol[] columnSymbols; // Nombres internados en SymbolTable.global()
+    private final List<Column> columns;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final int rowCount;
+    // Índices secundarios por columna, creados la primera vez que se piden
+    private final HashIndex[] hashIndexes;
+    private final SortedIndex[] sortedIndexes;
+
+    public Table(String name, List<Column> columns) {
+        this.name = name;
+        this.symbol = SymbolTable.global().intern(name);
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnSymbols = new Symbol[columns.size()];
+        int filas = columns.isEmpty() ? 0 : columns.get(0).size();
+        for (int i = 0; i < columns.size(); i++) {
+            Column c = columns.get(i);
+            if (c.size() != filas) {
+                throw new IllegalArgumentException("La columna " + c.name() + " de " + name + " no tiene " + filas + " filas.");
+            }
+            if (indices.put(c.name(), i) != null) {
+                throw new IllegalArgumentException("Columna duplicada en " + name + ": " + c.name());
+            }
+            columnSymbols[i] = SymbolTable.global().intern(c.name());
+        }
+        this.rowCount = filas;
+        this.hashIndexes = new HashIndex[columns.size()];
+        this.sortedIndexes = new SortedIndex[columns.size()];
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Symbol symbol() {
+        return symbol;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    public Column column(int index) {
+        return columns.get(index);
+    }
+
+    // Devuelve -1 si la columna no existe
+    public int columnIndex(String columnName) {
+        Integer i = indices.get(columnName);
+        return i == null ? -1 : i;
+    }
+
+    // Igual que columnIndex(String), comparando símbolos por identidad
+    public int columnIndex(Symbol columnName) {
+        for (int i = 0; i < columnSymbols.length; i++) {
+            if (columnSymbols[i] == columnName) return i;
+        }
+        return -1;
+    }
+
+    // Los índices suponen que las columnas ya no cambian después de crear la tabla
+    synchronized HashIndex hashIndex(int column) {
+        HashIndex index = hashIndexes[column];
+        if (index == null) {
+            index = HashIndex.build(columns.get(column));
+            hashIndexes[column] = index;
+        }
+        return index;
+    }
+
+    synchronized SortedIndex sortedIndex(int column) {
+        SortedIndex index = sortedIndexes[column];
+        if (index == null) {
+            index = SortedIndex.build(columns.get(column));
+            sortedIndexes[column] = index;
+        }
+        return index;
+    }
+}
@@ -1,5 +1,5 @@
 public enum TipoToken {
-    IDENTIFICADOR, NUMERO, CADENA,
+    IDENTIFICADOR, NUMERO, CADENA, PARAMETRO,
     AND, DISTINCT, FALSE, FROM, IS, NOT, NULL, OR, SELECT, TRUE, WHERE,
     COMA, SEMICOLON, DOT, LEFT_PAREN, RIGHT_PAREN,
     LT, LE, GT, GE, EQUAL, NE,
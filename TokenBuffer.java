@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+// Buffer compacto de tokens: arreglos paralelos en lugar de un objeto Token por token.
+// Los lexemas y literales se obtienen del texto fuente solo cuando se piden.
+public class TokenBuffer {
+    private static final TipoToken[] TIPOS = TipoToken.values();
+
+    private final String source;
+    private byte[] tipos;
+    private int[] inicios;
+    private int[] fines;
+    private int[] lineas;
+    private int size = 0;
+
+    public TokenBuffer(String source) {
+        this(source, 16);
+    }
+
+    public TokenBuffer(String source, int capacidad) {
+        this.source = source;
+        int n = Math.max(capacidad, 4);
+        this.tipos = new byte[n];
+        this.inicios = new int[n];
+        this.fines = new int[n];
+        this.lineas = new int[n];
+    }
+
+    void add(TipoToken tipo, int inicio, int fin, int linea) {
+        if (size == tipos.length) {
+            int n = size * 2;
+            tipos = Arrays.copyOf(tipos, n);
+            inicios = Arrays.copyOf(inicios, n);
+            fines = Arrays.copyOf(fines, n);
+            lineas = Arrays.copyOf(lineas, n);
+        }
+        tipos[size] = (byte) tipo.ordinal();
+        inicios[size] = inicio;
+        fines[size] = fin;
+        lineas[size] = linea;
+        size++;
+    }
+
+    // Copia los tokens [desde, hasta) de otro buffer desplazando posiciones y líneas
+    void addRange(TokenBuffer otro, int desde, int hasta, int deltaPosicion, int deltaLinea) {
+        int n = hasta - desde;
+        if (size + n > tipos.length) {
+            int capacidad = Math.max(size + n, size * 2);
+            tipos = Arrays.copyOf(tipos, capacidad);
+            inicios = Arrays.copyOf(inicios, capacidad);
+            fines = Arrays.copyOf(fines, capacidad);
+            lineas = Arrays.copyOf(lineas, capacidad);
+        }
+        System.arraycopy(otro.tipos, desde, tipos, size, n);
+        System.arraycopy(otro.inicios, desde, inicios, size, n);
+        System.arraycopy(otro.fines, desde, fines, size, n);
+        System.arraycopy(otro.lineas, desde, lineas, size, n);
+        if (deltaPosicion != 0) {
+            for (int i = size; i < size + n; i++) {
+                inicios[i] += deltaPosicion;
+                fines[i] += deltaPosicion;
+            }
+        }
+        if (deltaLinea != 0) {
+            for (int i = size; i < size + n; i++) lineas[i] += deltaLinea;
+        }
+        size += n;
+    }
+
+    // Índice del token que empieza exactamente en 'posicion' dentro de [desde, hasta), o -1
+    int indexOfStart(int posicion, int desde, int hasta) {
+        int i = Arrays.binarySearch(inicios, desde, hasta, posicion);
+        return i >= 0 ? i : -1;
+    }
+
+    void removeLast() {
+        size--;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TipoToken tipo(int i) {
+        return TIPOS[tipos[i]];
+    }
+
+    public int inicio(int i) {
+        return inicios[i];
+    }
+
+    public int fin(int i) {
+        return fines[i];
+    }
+
+    public int linea(int i) {
+        return lineas[i];
+    }
+
+    public String lexema(int i) {
+        return source.substring(inicios[i], fines[i]);
+    }
+
+    // Identificador internado directamente desde el texto fuente
+    public Symbol simbolo(int i, SymbolTable simbolos) {
+        return simbolos.intern(source, inicios[i], fines[i]);
+    }
+
+    // Valor numérico sin pasar por un Double en caja
+    public double numero(int i) {
+        return Double.parseDouble(lexema(i));
+    }
+
+    // Contenido de una cadena sin las comillas
+    public String cadena(int i) {
+        return source.substring(inicios[i] + 1, fines[i] - 1);
+    }
+
+    // Vista opcional como objeto Token (con el mismo literal que produce scanTokens())
+    public Token token(int i) {
+        TipoToken tipo = tipo(i);
+        Object literal = null;
+        if (tipo == TipoToken.NUMERO) literal = numero(i);
+        else if (tipo == TipoToken.CADENA) literal = cadena(i);
+        return new Token(tipo, lexema(i), literal, lineas[i]);
+    }
+
+    public TokenSource cursor() {
+        return new Cursor(0, size);
+    }
+
+    // Recorre solo los tokens [desde, hasta); al llegar a 'hasta' devuelve EOF
+    public TokenSource cursor(int desde, int hasta) {
+        return new Cursor(desde, hasta);
+    }
+
+    // Recorre el buffer sin crear objetos Token salvo que se pidan explícitamente
+    private class Cursor implements TokenSource {
+        private final int hasta;
+        private int index;
+
+        Cursor(int desde, int hasta) {
+            this.index = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        public Token nextToken() {
+            Token token = peekToken();
+            consume();
+            return token;
+        }
+
+        @Override
+        public Token peekToken() {
+            if (index >= hasta) return new Token(TipoToken.EOF, "", hasta > 0 ? lineas[hasta - 1] : 1);
+            return token(index);
+        }
+
+        @Override
+        public TipoToken peekTipo() {
+            return index >= hasta ? TipoToken.EOF : tipo(index);
+        }
+
+        @Override
+        public String peekLexema() {
+            return index >= hasta ? "" : lexema(index);
+        }
+
+        @Override
+        public Symbol peekSimbolo(SymbolTable simbolos) {
+            return simbolo(index, simbolos);
+        }
+
+        @Override
+        public void consume() {
+            if (index < hasta && tipo(index) != TipoToken.EOF) index++; // EOF se repite indefinidamente
+        }
+    }
+}
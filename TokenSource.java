@@ -0,0 +1,28 @@
+// Fuente de tokens bajo demanda: el Parser solo necesita ver un token de anticipación
+public interface TokenSource {
+    // Consume y devuelve el siguiente token; al terminar devuelve EOF indefinidamente
+    Token nextToken();
+
+    // Devuelve el siguiente token sin consumirlo
+    Token peekToken();
+
+    // Tipo del siguiente token; las fuentes compactas lo responden sin crear un Token
+    default TipoToken peekTipo() {
+        return peekToken().tipo;
+    }
+
+    // Lexema del siguiente token; solo se materializa cuando el Parser lo pide
+    default String peekLexema() {
+        return peekToken().lexema;
+    }
+
+    // Símbolo del siguiente identificador; las fuentes compactas lo internan sin crear el lexema
+    default Symbol peekSimbolo(SymbolTable simbolos) {
+        return simbolos.intern(peekLexema());
+    }
+
+    // Consume el siguiente token sin devolverlo
+    default void consume() {
+        nextToken();
+    }
+}
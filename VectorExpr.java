@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+// Expresiones ya resueltas contra las tablas del FROM que se evalúan por lotes.
+// Cada nodo guarda su propio vector de salida, así que evaluar un lote no crea objetos
+// y la llamada virtual se paga una vez por lote y no una vez por fila.
+
+// Lote de filas en evaluación: rows[t][i] es la fila de la tabla t en la posición i
+final class Batch {
+    static final int SIZE = 1024;
+
+    final int[][] rows;
+    int n;
+
+    Batch(int sources) {
+        this.rows = new int[sources][SIZE];
+    }
+
+    // Deja en el lote solo las posiciones donde selected[i] es verdadero
+    void filter(boolean[] selected) {
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (selected[i]) {
+                for (int[] r : rows) r[k] = r[i];
+                k++;
+            }
+        }
+        n = k;
+    }
+}
+
+abstract class VectorExpr {
+    final ColumnType type;
+    final double[] numbers;
+    final String[] strings;
+    final boolean[] bools;
+
+    VectorExpr(ColumnType type) {
+        this.type = type;
+        this.numbers = type == ColumnType.NUMBER ? new double[Batch.SIZE] : null;
+        this.strings = type == ColumnType.STRING ? new String[Batch.SIZE] : null;
+        this.bools = type == ColumnType.BOOLEAN ? new boolean[Batch.SIZE] : null;
+    }
+
+    abstract void eval(Batch batch);
+}
+
+// Lectura de una columna de una de las tablas del FROM
+class ColumnRefExpr extends VectorExpr {
+    final int source;
+    final Column column;
+
+    ColumnRefExpr(int source, Column column) {
+        super(column.type());
+        this.source = source;
+        this.column = column;
+    }
+
+    @Override
+    void eval(Batch batch) {
+        if (type == ColumnType.NUMBER) column.gatherNumbers(batch.rows[source], batch.n, numbers);
+        else column.gatherStrings(batch.rows[source], batch.n, strings);
+    }
+}
+
+// Las constantes llenan su vector una sola vez
+class ConstantExpr extends VectorExpr {
+    final double number;
+    final String string;
+
+    ConstantExpr(double value) {
+        super(ColumnType.NUMBER);
+        this.number = value;
+        this.string = null;
+        Arrays.fill(numbers, value);
+    }
+
+    ConstantExpr(String value) {
+        super(ColumnType.STRING);
+        this.number = 0;
+        this.string = value;
+        Arrays.fill(strings, value);
+    }
+
+    ConstantExpr(boolean value) {
+        super(ColumnType.BOOLEAN);
+        this.number = 0;
+        this.string = null;
+        Arrays.fill(bools, value);
+    }
+
+    @Override
+    void eval(Batch batch) {
+    }
+}
+
+class ArithmeticExpr extends VectorExpr {
+    final char operator;
+    final VectorExpr left;
+    final VectorExpr right;
+
+    ArithmeticExpr(char operator, VectorExpr left, VectorExpr right) {
+        super(ColumnType.NUMBER);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    void eval(Batch batch) {
+        left.eval(batch);
+        right.eval(batch);
+        double[] l = left.numbers;
+        double[] r = right.numbers;
+        double[] out = numbers;
+        int n = batch.n;
+        switch (operator) {
+            case '+': for (int i = 0; i < n; i++) out[i] = l[i] + r[i]; break;
+            case '-': for (int i = 0; i < n; i++) out[i] = l[i] - r[i]; break;
+            case '*': for (int i = 0; i < n; i++) out[i] = l[i] * r[i]; break;
+            default: for (int i = 0; i < n; i++) out[i] = l[i] / r[i]; break;
+        }
+    }
+}
+
+// Comparación entre dos números o dos cadenas
+class CompareExpr extends VectorExpr {
+    static final int EQ = 0, NE = 1, LT = 2, LE = 3, GT = 4, GE = 5;
+
+    final int operator;
+    final VectorExpr left;
+    final VectorExpr right;
+
+    CompareExpr(int operator, VectorExpr left, VectorExpr right) {
+        super(ColumnType.BOOLEAN);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    static int operator(String text) {
+        switch (text) {
+            case "=": return EQ;
+            case "!=": return NE;
+            case "<": return LT;
+            case "<=": return LE;
+            case ">": return GT;
+            case ">=": return GE;
+            default: throw new IllegalArgumentException("Operador relacional desconocido: " + text);
+        }
+    }
+
+    @Override
+    void eval(Batch batch) {
+        left.eval(batch);
+        right.eval(batch);
+        if (left.type == ColumnType.NUMBER) evalNumbers(batch.n);
+        else evalStrings(batch.n);
+    }
+
+    private void evalNumbers(int n) {
+        double[] l = left.numbers;
+        double[] r = right.numbers;
+        boolean[] out = bools;
+        switch (operator) {
+            case EQ: for (int i = 0; i < n; i++) out[i] = l[i] == r[i]; break;
+            case NE: for (int i = 0; i < n; i++) out[i] = l[i] != r[i]; break;
+            case LT: for (int i = 0; i < n; i++) out[i] = l[i] < r[i]; break;
+            case LE: for (int i = 0; i < n; i++) out[i] = l[i] <= r[i]; break;
+            case GT: for (int i = 0; i < n; i++) out[i] = l[i] > r[i]; break;
+            default: for (int i = 0; i < n; i++) out[i] = l[i] >= r[i]; break;
+        }
+    }
+
+    // Una cadena nula nunca cumple la comparación
+    private void evalStrings(int n) {
+        String[] l = left.strings;
+        String[] r = right.strings;
+        boolean[] out = bools;
+        for (int i = 0; i < n; i++) {
+            if (l[i] == null || r[i] == null) {
+                out[i] = false;
+                continue;
+            }
+            int c = l[i].compareTo(r[i]);
+            switch (operator) {
+                case EQ: out[i] = c == 0; break;
+                case NE: out[i] = c != 0; break;
+                case LT: out[i] = c < 0; break;
+                case LE: out[i] = c <= 0; break;
+                case GT: out[i] = c > 0; break;
+                default: out[i] = c >= 0; break;
+            }
+        }
+    }
+}
+
+class LogicalExpr extends VectorExpr {
+    final boolean and;
+    final VectorExpr left;
+    final VectorExpr right;
+
+    LogicalExpr(boolean and, VectorExpr left, VectorExpr right) {
+        super(ColumnType.BOOLEAN);
+        this.and = and;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    void eval(Batch batch) {
+        left.eval(batch);
+        right.eval(batch);
+        boolean[] l = left.bools;
+        boolean[] r = right.bools;
+        boolean[] out = bools;
+        int n = batch.n;
+        if (and) for (int i = 0; i < n; i++) out[i] = l[i] & r[i];
+        else for (int i = 0; i < n; i++) out[i] = l[i] | r[i];
+    }
+}
+
+class NotExpr extends VectorExpr {
+    final VectorExpr operand;
+
+    NotExpr(VectorExpr operand) {
+        super(ColumnType.BOOLEAN);
+        this.operand = operand;
+    }
+
+    @Override
+    void eval(Batch batch) {
+        operand.eval(batch);
+        boolean[] v = operand.bools;
+        boolean[] out = bools;
+        int n = batch.n;
+        for (int i = 0; i < n; i++) out[i] = !v[i];
+    }
+}
@@ -0,0 +1,24 @@
+package compiladores.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Recorrido con filtro y proyección de 2M filas según la cantidad de trabajadores
+@State(Scope.Benchmark)
+public class EngineBenchmark extends Operacion {
+    @Param({"1", "2", "4"})
+    public int paralelismo;
+
+    @Setup
+    public void preparar() {
+        operacion = resolver("engine.scan/paralelismo-" + paralelismo);
+    }
+
+    @Benchmark
+    public Object scan() {
+        return operacion.get();
+    }
+}
@@ -0,0 +1,36 @@
+package compiladores.bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Base de los benchmarks de JMH. JMH no admite benchmarks en el paquete por defecto y desde un
+// paquete con nombre no se pueden importar las clases del proyecto, así que cada benchmark pide
+// a Benchmarks.operacion(nombre), por reflexión y una sola vez en @Setup, la misma operación que
+// mide la prueba rápida. En el método medido solo queda la llamada a Supplier.get().
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class Operacion {
+    protected Supplier<Object> operacion;
+
+    @SuppressWarnings("unchecked")
+    protected static Supplier<Object> resolver(String nombre) {
+        try {
+            return (Supplier<Object>) Class.forName("Benchmarks").getMethod("operacion", String.class).invoke(null, nombre);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("No se pudo preparar " + nombre, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Falta Benchmarks.operacion en el classpath", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package compiladores.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Parser sobre tokens ya escaneados (lista o buffer) y directamente sobre el Scanner
+@State(Scope.Benchmark)
+public class ParserBenchmark extends Operacion {
+    @Param({"parse.list", "parse.compact", "parse.stream"})
+    public String modo;
+
+    @Param({"corta", "select-ancho", "where-anidado", "from-multiple"})
+    public String corpus;
+
+    @Setup
+    public void preparar() {
+        operacion = resolver(modo + "/" + corpus);
+    }
+
+    @Benchmark
+    public Object parse() {
+        return operacion.get();
+    }
+}
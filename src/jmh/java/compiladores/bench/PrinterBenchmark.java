@@ -0,0 +1,27 @@
+package compiladores.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Recorridos de un árbol ya construido: impresoras y codificación en FlatAST
+@State(Scope.Benchmark)
+public class PrinterBenchmark extends Operacion {
+    @Param({"print", "print.buffered", "flat.encode", "flat.decode"})
+    public String modo;
+
+    @Param({"corta", "select-ancho", "where-anidado", "from-multiple"})
+    public String corpus;
+
+    @Setup
+    public void preparar() {
+        operacion = resolver(modo + "/" + corpus);
+    }
+
+    @Benchmark
+    public Object recorrer() {
+        return operacion.get();
+    }
+}
@@ -0,0 +1,27 @@
+package compiladores.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Scanner: lista de Token contra TokenBuffer compacto
+@State(Scope.Benchmark)
+public class ScannerBenchmark extends Operacion {
+    @Param({"scan.list", "scan.compact"})
+    public String modo;
+
+    @Param({"corta", "select-ancho", "where-anidado", "from-multiple", "script-comentarios"})
+    public String corpus;
+
+    @Setup
+    public void preparar() {
+        operacion = resolver(modo + "/" + corpus);
+    }
+
+    @Benchmark
+    public Object scan() {
+        return operacion.get();
+    }
+}